@@ -2,7 +2,11 @@ package com.ufrpe.main.controller;
 
 import com.ufrpe.main.exceptions.InvalidCredentialsException;
 import com.ufrpe.main.models.*;
+import com.ufrpe.main.rastreamento.Rastreador;
+import com.ufrpe.main.rastreamento.Span;
 import com.ufrpe.main.repository.UserRepository;
+import com.ufrpe.main.service.RecodificadorSenhas;
+import com.ufrpe.main.service.TokenRenovacaoService;
 import com.ufrpe.main.service.TokenService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -32,6 +36,12 @@ public class AuthController {
     private TokenService tokenService;
     @Autowired
     private PasswordEncoder passwordEncoder;
+    @Autowired
+    private Rastreador rastreador;
+    @Autowired
+    private RecodificadorSenhas recodificadorSenhas;
+    @Autowired
+    private TokenRenovacaoService tokenRenovacaoService;
 
     @Operation(summary = "Realizar Login", description = "Autentica um usuário e retorna um token JWT.")
     @ApiResponses(value = {
@@ -53,7 +63,12 @@ public class AuthController {
             Usuario usuario = (Usuario) auth.getPrincipal();
             var token = tokenService.generateToken((Usuario) auth.getPrincipal());
 
-            return ResponseEntity.ok(new LoginResponseDTO(token, usuario.getId(), usuario.getUsername()));
+            // hashes com parâmetros antigos do Argon2 são refeitos em segundo plano
+            recodificadorSenhas.recodificarSeNecessario(usuario, data.password());
+
+            var refreshToken = tokenRenovacaoService.emitir(usuario);
+
+            return ResponseEntity.ok(new LoginResponseDTO(token, usuario.getId(), usuario.getUsername(), refreshToken));
         }
 
         catch(AuthenticationException e){
@@ -73,6 +88,23 @@ public class AuthController {
         }
 
     }
+    @Operation(summary = "Renovar sessão", description = "Troca um refresh token válido por um novo access token e um novo refresh token.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Sessão renovada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = LoginResponseDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Refresh token inválido, expirado ou reutilizado",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    // não verifica senha: o refresh token é trocado por outro (rotação) e o access token é gerado de novo
+    @PostMapping("/refresh")
+    public ResponseEntity refresh(@RequestBody RefreshDTO data){
+        var renovacao = tokenRenovacaoService.renovar(data.refreshToken());
+        Usuario usuario = renovacao.usuario();
+        var token = tokenService.generateToken(usuario);
+
+        return ResponseEntity.ok(new LoginResponseDTO(token, usuario.getId(), usuario.getUsername(), renovacao.refreshToken()));
+    }
+
     // tags para personalizar o swagger
     @Operation(summary = "Registrar novo usuário", description = "Cria uma nova conta de usuário no sistema.")
     @ApiResponses(value = {
@@ -84,12 +116,14 @@ public class AuthController {
     // recebe um JSON que contem nome, senha e cargo. Então criptografa a senha e armazena o novo usuario no repositorio
     @PostMapping("/register")
     public ResponseEntity register(@RequestBody RegisterDTO data){
-        if(this.userRepository.findByUsername(data.username()) != null) return ResponseEntity.status(HttpStatus.CONFLICT).body(new APIresponse("Usuário já cadastrado! "));
+        var existente = rastreador.emSpan("UserRepository.findByUsername", Span.CLIENTE,
+                () -> this.userRepository.findByUsername(data.username()));
+        if(existente != null) return ResponseEntity.status(HttpStatus.CONFLICT).body(new APIresponse("Usuário já cadastrado! "));
 
         String encryptedPassword = passwordEncoder.encode(data.password());
         Usuario novoUsuario = new Usuario(data.username(), encryptedPassword, data.role());
 
-        this.userRepository.save(novoUsuario);
+        rastreador.emSpan("UserRepository.save", Span.CLIENTE, () -> this.userRepository.save(novoUsuario));
         return ResponseEntity.ok(new APIresponse("Registro realizado com sucesso!"));
 
     }
@@ -0,0 +1,63 @@
+package com.ufrpe.main.controller;
+
+import com.ufrpe.main.models.PaginaUsuariosDTO;
+import com.ufrpe.main.models.UserRole;
+import com.ufrpe.main.models.UsuarioResumoDTO;
+import com.ufrpe.main.repository.UserRepository;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api/usuarios")
+public class UsuarioAdminController {
+    private static final int LIMITE_MAXIMO = 200;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Operation(summary = "Buscar usuários (ADMIN)", description = "Lista usuários por prefixo do username e role. Sem prefixo pagina pelo id; com prefixo pelo username e id.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de usuários",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = PaginaUsuariosDTO.class))),
+            @ApiResponse(responseCode = "403", description = "Acesso restrito a administradores", content = @Content)
+    })
+    // GET /api/** exige ADMIN no SecurityConfig
+    @GetMapping
+    public ResponseEntity<PaginaUsuariosDTO> buscar(@RequestParam(required = false) String prefixo,
+                                                    @RequestParam(required = false) UserRole role,
+                                                    @RequestParam(defaultValue = "0") int depoisDe,
+                                                    @RequestParam(required = false) String depoisDeUsername,
+                                                    @RequestParam(defaultValue = "50") int limite) {
+        int tamanho = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        if (prefixo == null || prefixo.isEmpty()) {
+            List<UsuarioResumoDTO> usuarios = userRepository.buscarResumos(depoisDe, role, Limit.of(tamanho));
+            UsuarioResumoDTO ultimo = usuarios.size() == tamanho ? usuarios.get(usuarios.size() - 1) : null;
+            return ResponseEntity.ok(new PaginaUsuariosDTO(usuarios, ultimo == null ? null : ultimo.id(), null));
+        }
+
+        // a primeira página começa no próprio prefixo: todo nome que começa com ele vem depois dele na ordem
+        String cursorUsername = depoisDeUsername == null ? prefixo : depoisDeUsername;
+        int cursorId = depoisDeUsername == null ? 0 : depoisDe;
+        List<UsuarioResumoDTO> usuarios = userRepository.buscarResumosPorPrefixo(cursorUsername, cursorId,
+                escaparLike(prefixo) + "%", role, Limit.of(tamanho));
+        UsuarioResumoDTO ultimo = usuarios.size() == tamanho ? usuarios.get(usuarios.size() - 1) : null;
+        return ResponseEntity.ok(ultimo == null
+                ? new PaginaUsuariosDTO(usuarios, null, null)
+                : new PaginaUsuariosDTO(usuarios, ultimo.id(), ultimo.username()));
+    }
+
+    // % e _ digitados pelo admin são tratados como texto, não como curinga
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -2,5 +2,5 @@ package com.ufrpe.main.models;
 
 import java.util.UUID;
 
-public record LoginResponseDTO(String token, int userId, String username) {
+public record LoginResponseDTO(String token, int userId, String username, String refreshToken) {
 }
@@ -0,0 +1,8 @@
+package com.ufrpe.main.models;
+
+import java.util.List;
+
+// proximoCursor é o valor a passar em depoisDe para a próxima página; null quando não há mais resultados.
+// Na busca por prefixo a ordem é por username e proximoUsername vai junto, em depoisDeUsername
+public record PaginaUsuariosDTO(List<UsuarioResumoDTO> usuarios, Integer proximoCursor, String proximoUsername) {
+}
@@ -0,0 +1,4 @@
+package com.ufrpe.main.models;
+
+public record RefreshDTO(String refreshToken) {
+}
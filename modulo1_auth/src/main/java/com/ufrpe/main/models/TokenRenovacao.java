@@ -0,0 +1,43 @@
+package com.ufrpe.main.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// refresh token opaco: só o SHA-256 (32 bytes) fica no banco, com índice único para a busca do /auth/refresh
+@Entity
+@Table(name = "token_renovacao")
+@Data
+@NoArgsConstructor
+public class TokenRenovacao {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(nullable = false, unique = true, length = 32)
+    private byte[] hash;
+
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    private Usuario usuario;
+
+    // todos os tokens gerados a partir do mesmo login; reuso de um token já trocado revoga a família inteira
+    @Column(nullable = false)
+    private UUID familia;
+
+    @Column(nullable = false)
+    private Instant expiraEm;
+
+    // limite absoluto da sessão, mesmo que ela continue sendo renovada
+    @Column(nullable = false)
+    private Instant familiaExpiraEm;
+
+    private boolean usado;
+}
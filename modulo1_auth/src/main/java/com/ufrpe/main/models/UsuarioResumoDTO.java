@@ -0,0 +1,5 @@
+package com.ufrpe.main.models;
+
+// projeção usada na busca de usuários: não carrega o hash da senha
+public record UsuarioResumoDTO(int id, String username, UserRole role) {
+}
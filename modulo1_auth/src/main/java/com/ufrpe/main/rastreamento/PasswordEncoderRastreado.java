@@ -0,0 +1,30 @@
+package com.ufrpe.main.rastreamento;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// envolve o encoder de senha para medir o custo do Argon2 dentro do traço da requisição
+public class PasswordEncoderRastreado implements PasswordEncoder {
+
+    private final PasswordEncoder delegado;
+    private final Rastreador rastreador;
+
+    public PasswordEncoderRastreado(PasswordEncoder delegado, Rastreador rastreador) {
+        this.delegado = delegado;
+        this.rastreador = rastreador;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return rastreador.emSpan("PasswordEncoder.encode", Span.INTERNO, () -> delegado.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return rastreador.emSpan("PasswordEncoder.matches", Span.INTERNO, () -> delegado.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegado.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,28 @@
+package com.ufrpe.main.rastreamento;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+// estado de um traço dentro de uma requisição (uma thread)
+final class Traco {
+    final long traceIdAlto;
+    final long traceIdBaixo;
+    final boolean amostradoNaOrigem;
+    final long inicioEpochNanos;
+    final long inicioNanos;
+    final List<Span> spans = new ArrayList<>(8);
+    final ArrayDeque<Span> pilha = new ArrayDeque<>(4);
+
+    Traco(long traceIdAlto, long traceIdBaixo, boolean amostradoNaOrigem) {
+        this.traceIdAlto = traceIdAlto;
+        this.traceIdBaixo = traceIdBaixo;
+        this.amostradoNaOrigem = amostradoNaOrigem;
+        this.inicioEpochNanos = System.currentTimeMillis() * 1_000_000L;
+        this.inicioNanos = System.nanoTime();
+    }
+
+    long epochNanos(long nanos) {
+        return inicioEpochNanos + (nanos - inicioNanos);
+    }
+}
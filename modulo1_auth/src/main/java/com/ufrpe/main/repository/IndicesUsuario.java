@@ -0,0 +1,27 @@
+package com.ufrpe.main.repository;
+
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// índices que o ddl-auto do Hibernate não sabe criar (classe de operador text_pattern_ops)
+@Component
+public class IndicesUsuario {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IndicesUsuario(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void criarIndices() {
+        // atende LIKE 'prefixo%' independente da collation do banco, e também o findByUsername por igualdade
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_usuario_username_prefixo ON usuario (username text_pattern_ops)");
+        // busca por prefixo já ordenada por (username, id), a chave da paginação nesse caso
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_usuario_username_id ON usuario (username, id)");
+        // filtro por role já ordenado por id para a paginação por chave
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_usuario_role_id ON usuario (role, id)");
+    }
+}
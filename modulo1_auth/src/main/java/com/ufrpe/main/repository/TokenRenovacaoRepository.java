@@ -0,0 +1,31 @@
+package com.ufrpe.main.repository;
+
+import com.ufrpe.main.models.TokenRenovacao;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface TokenRenovacaoRepository extends JpaRepository<TokenRenovacao, Long> {
+
+    // uma busca pelo índice do hash, já trazendo o usuário para gerar o novo access token
+    @Query("select t from TokenRenovacao t join fetch t.usuario where t.hash = :hash")
+    Optional<TokenRenovacao> buscarPorHash(@Param("hash") byte[] hash);
+
+    // só um pedido consegue trocar o token; o segundo recebe 0 e é tratado como reuso
+    @Modifying
+    @Query("update TokenRenovacao t set t.usado = true where t.id = :id and t.usado = false")
+    int marcarUsado(@Param("id") long id);
+
+    @Modifying
+    @Query("delete from TokenRenovacao t where t.familia = :familia")
+    int revogarFamilia(@Param("familia") UUID familia);
+
+    @Modifying
+    @Query("delete from TokenRenovacao t where t.expiraEm < :agora")
+    int removerExpirados(@Param("agora") Instant agora);
+}
@@ -1,11 +1,47 @@
 package com.ufrpe.main.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import com.ufrpe.main.models.UserRole;
 import com.ufrpe.main.models.Usuario;
+import com.ufrpe.main.models.UsuarioResumoDTO;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 public interface UserRepository extends JpaRepository<Usuario, String> {
     UserDetails findByUsername(String username);
 
+    // troca o hash apenas se ele não mudou desde a verificação (ex.: troca de senha no meio do caminho)
+    @Transactional
+    @Modifying
+    @Query("update Usuario u set u.password = :novoHash where u.id = :id and u.password = :hashAntigo")
+    int atualizarSenha(@Param("id") int id, @Param("hashAntigo") String hashAntigo, @Param("novoHash") String novoHash);
+
+    // paginação por chave (id > cursor), sem OFFSET. Sem filtro de role é uma varredura da chave primária a partir
+    // do cursor; com role usa o índice (role, id). Uma role rara ainda faz a última página ler até o fim do índice
+    @Query("select new com.ufrpe.main.models.UsuarioResumoDTO(u.id, u.username, u.Role) from Usuario u " +
+            "where u.id > :depoisDe and (:role is null or u.Role = :role) " +
+            "order by u.id")
+    List<UsuarioResumoDTO> buscarResumos(@Param("depoisDe") int depoisDe, @Param("role") UserRole role, Limit limite);
+
+    // com prefixo a ordem é (username, id), a do índice idx_usuario_username_id: a página começa no cursor e
+    // percorre só nomes que vêm depois dele. O username >= repetido é o que deixa o Postgres abrir a varredura no
+    // cursor (ele não transforma o OR em faixa). Os nomes do prefixo ficam juntos nessa ordem, mas o banco não sabe
+    // onde eles acabam: uma página que não enche lê o resto do índice. Para prefixos seletivos o planejador
+    // prefere idx_usuario_username_prefixo e ordena só os nomes encontrados
+    @Query("select new com.ufrpe.main.models.UsuarioResumoDTO(u.id, u.username, u.Role) from Usuario u " +
+            "where u.username >= :depoisDeUsername " +
+            "and (u.username > :depoisDeUsername or u.id > :depoisDe) " +
+            "and u.username like :padrao escape '\\' and (:role is null or u.Role = :role) " +
+            "order by u.username, u.id")
+    List<UsuarioResumoDTO> buscarResumosPorPrefixo(@Param("depoisDeUsername") String depoisDeUsername,
+                                                   @Param("depoisDe") int depoisDe, @Param("padrao") String padrao,
+                                                   @Param("role") UserRole role, Limit limite);
+
 
 }
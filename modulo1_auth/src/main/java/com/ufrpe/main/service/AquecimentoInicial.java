@@ -0,0 +1,105 @@
+package com.ufrpe.main.service;
+
+import com.ufrpe.main.models.UserRole;
+import com.ufrpe.main.models.Usuario;
+import com.ufrpe.main.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aquece JIT, Argon2, consultas do Hibernate e o pool do Hikari com dados sintéticos antes de aceitar tráfego.
+ * Os ApplicationRunner rodam antes do Spring Boot marcar a aplicação como pronta (ReadinessState.ACCEPTING_TRAFFIC),
+ * então /actuator/health/readiness só responde UP depois que o aquecimento termina.
+ * A duração de cada etapa fica na métrica aquecimento.duracao.
+ */
+@Component
+public class AquecimentoInicial implements ApplicationRunner {
+    private static final String USUARIO_SINTETICO = "__aquecimento__";
+
+    @Autowired
+    private TokenService tokenService;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${aquecimento.ativo:true}")
+    private boolean ativo;
+    @Value("${aquecimento.iteracoes:200}")
+    private int iteracoes;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!ativo) return;
+
+        etapa("pool", this::esperarPool);
+        etapa("token", () -> {
+            Usuario usuario = new Usuario(USUARIO_SINTETICO, "", UserRole.FREE);
+            for (int i = 0; i < iteracoes; i++) {
+                tokenService.validateToken(tokenService.generateToken(usuario));
+            }
+        });
+        etapa("argon2", () -> {
+            String hash = passwordEncoder.encode(USUARIO_SINTETICO);
+            for (int i = 0; i < 3; i++) {
+                passwordEncoder.matches(USUARIO_SINTETICO, hash);
+            }
+        });
+        etapa("hibernate", () -> {
+            for (int i = 0; i < Math.max(1, iteracoes / 10); i++) {
+                userRepository.findByUsername(USUARIO_SINTETICO);
+            }
+        });
+    }
+
+    private void etapa(String nome, Acao acao) {
+        meterRegistry.timer("aquecimento.duracao", "etapa", nome).record(() -> {
+            try {
+                acao.executar();
+            } catch (Exception ex) {
+                // uma etapa que falha não impede a subida, só fica registrada
+                System.err.println("Falha no aquecimento (" + nome + "): " + ex.getMessage());
+            }
+        });
+    }
+
+    // a primeira conexão inicia o pool e o próprio Hikari abre as demais até o minimumIdle;
+    // aqui só esperamos ele terminar, para a primeira requisição não pagar o handshake TLS
+    private void esperarPool() throws Exception {
+        try (Connection conexao = dataSource.getConnection()) {
+            // devolvida ao pool já aberta
+        }
+        if (!(dataSource instanceof HikariDataSource hikari)) return;
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) return;
+
+        int minimo = hikari.getMinimumIdle();
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(hikari.getConnectionTimeout() * Math.max(1, minimo));
+        while (pool.getTotalConnections() < minimo) {
+            if (System.nanoTime() > limite) {
+                throw new IllegalStateException("pool com " + pool.getTotalConnections() + " de " + minimo + " conexões");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Acao {
+        void executar() throws Exception;
+    }
+}
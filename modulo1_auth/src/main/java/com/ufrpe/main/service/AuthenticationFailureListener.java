@@ -17,9 +17,6 @@ public class AuthenticationFailureListener implements ApplicationListener<Authen
 
     @Override
     public void onApplicationEvent(AuthenticationFailureBadCredentialsEvent event) {
-        final String xfHeader = request.getHeader("X-Forwarded-For");
-        String key = xfHeader == null ? request.getRemoteAddr() : xfHeader.split(",")[0];
-
-        loginAttemptService.loginFailed(key);
+        loginAttemptService.loginFailed(LoginAttemptService.chaveDoCliente(request));
     }
 }
@@ -18,9 +18,6 @@ public class AuthenticationSucessListener implements ApplicationListener<Authent
 
     @Override
     public void onApplicationEvent(AuthenticationSuccessEvent event) {
-        final String xfHeader = request.getHeader("X-Forwarded-For");
-        String key = xfHeader == null ? request.getRemoteAddr() : xfHeader.split(",")[0];
-
-        loginAttemptService.loginSucesso(key);
+        loginAttemptService.loginSucesso(LoginAttemptService.chaveDoCliente(request));
     }
 }
@@ -1,5 +1,7 @@
 package com.ufrpe.main.service;
 
+import com.ufrpe.main.rastreamento.Rastreador;
+import com.ufrpe.main.rastreamento.Span;
 import com.ufrpe.main.repository.UserRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,10 +22,13 @@ public class AuthorizationService implements UserDetailsService {
     @Autowired
     private LoginAttemptService loginAttemptService;
 
+    @Autowired
+    private Rastreador rastreador;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 
-        String ip = getClientIP();
+        String ip = LoginAttemptService.chaveDoCliente(request);
 
         if(loginAttemptService.isBlocked(ip)){
             long segundosRestante = loginAttemptService.getSecondsRemaining(ip);
@@ -37,15 +42,11 @@ public class AuthorizationService implements UserDetailsService {
 
         }
 
-        var user = userRepository.findByUsername(username);
+        var user = rastreador.emSpan("UserRepository.findByUsername", Span.CLIENTE,
+                () -> userRepository.findByUsername(username));
         if(user == null){
             throw new UsernameNotFoundException(username);
         }
         return user;
     }
-
-    private String getClientIP() {
-        final String xfHeader = request.getHeader("X-Forwarded-For");
-        return (xfHeader == null) ? request.getRemoteAddr() : xfHeader.split(",")[0];
-    }
 }
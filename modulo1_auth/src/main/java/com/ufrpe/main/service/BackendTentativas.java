@@ -0,0 +1,12 @@
+package com.ufrpe.main.service;
+
+// onde ficam guardadas as tentativas de login e os bloqueios; a política (3 tentativas, 15 min) fica na implementação
+public interface BackendTentativas {
+
+    void registrarFalha(String chave);
+
+    void registrarSucesso(String chave);
+
+    // horário (em millis) em que a chave é desbloqueada, ou 0 se não existe bloqueio ativo
+    long desbloqueioEm(String chave);
+}
@@ -0,0 +1,180 @@
+package com.ufrpe.main.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Backend em que tentativas e bloqueios valem para todas as réplicas.
+ * As falhas são somadas localmente e enviadas em lote a cada sincronização; só há ida síncrona à loja quando
+ * esta réplica sozinha já atingiu o limite de tentativas.
+ * A decisão de bloqueio fica em cache local: um bloqueio conhecido vale até o desbloqueio, e um "não bloqueado"
+ * vale por cache-negativo-ms. Na falta do cache, uma busca pela chave daquele IP, nunca a lista inteira de
+ * bloqueios, que é justamente o que cresce durante um ataque distribuído.
+ */
+@Service
+@ConditionalOnProperty(name = "seguranca.login.backend", havingValue = "compartilhado")
+public class BackendTentativasCompartilhado implements BackendTentativas {
+    private static final String PREFIXO_TENTATIVAS = "tentativas:";
+    private static final String PREFIXO_BLOQUEIO = "bloqueio:";
+    private static final int CICLOS_ENTRE_LIMPEZAS = 120;
+
+    private final LojaCompartilhada loja;
+    private final int tentativas;
+    private final Duration duracaoBloqueio;
+
+    private final ConcurrentHashMap<String, Integer> falhasPendentes = new ConcurrentHashMap<>();
+    private final Set<String> resetsPendentes = ConcurrentHashMap.newKeySet();
+    // último total visto na loja para cada chave, usado para decidir o bloqueio sem consultar a loja
+    private final Cache<String, Long> totaisConhecidos;
+    // bloqueios conhecidos por esta réplica (criados aqui ou lidos da loja), até o horário de desbloqueio
+    private final ConcurrentHashMap<String, Long> bloqueiosConhecidos = new ConcurrentHashMap<>();
+    // chaves que a loja respondeu como não bloqueadas há pouco
+    private final Cache<String, Boolean> naoBloqueados;
+
+    private final ScheduledExecutorService agendador;
+    private int ciclos;
+
+    public BackendTentativasCompartilhado(LojaCompartilhada loja,
+                                          @Value("${seguranca.login.tentativas:3}") int tentativas,
+                                          @Value("${seguranca.login.bloqueio-minutos:15}") long duracaoBloqueioMinutos,
+                                          @Value("${seguranca.login.compartilhado.intervalo-ms:500}") long intervaloMs,
+                                          @Value("${seguranca.login.compartilhado.cache-negativo-ms:1000}") long cacheNegativoMs) {
+        this.loja = loja;
+        this.tentativas = tentativas;
+        this.duracaoBloqueio = Duration.ofMinutes(duracaoBloqueioMinutos);
+        this.totaisConhecidos = CacheBuilder.newBuilder()
+                .expireAfterWrite(duracaoBloqueioMinutos, TimeUnit.MINUTES)
+                .build();
+        this.naoBloqueados = CacheBuilder.newBuilder()
+                .expireAfterWrite(cacheNegativoMs, TimeUnit.MILLISECONDS)
+                .maximumSize(100_000)
+                .build();
+
+        this.agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sincronizacao-tentativas-login");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleWithFixedDelay(this::sincronizarComSeguranca, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void registrarFalha(String chave) {
+        int pendentes = falhasPendentes.merge(chave, 1, Integer::sum);
+        Long conhecido = totaisConhecidos.getIfPresent(chave);
+
+        // se esta réplica sozinha já chega ao limite, não espera o lote para bloquear
+        if ((conhecido == null ? 0 : conhecido) + pendentes >= tentativas) {
+            try {
+                enviar(chave);
+            } catch (Exception ex) {
+                // a falha continua pendente e vai no próximo lote
+                System.err.println("Falha ao registrar tentativa de login na loja compartilhada: " + ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void registrarSucesso(String chave) {
+        falhasPendentes.remove(chave);
+        totaisConhecidos.invalidate(chave);
+        resetsPendentes.add(chave);
+    }
+
+    @Override
+    public long desbloqueioEm(String chave) {
+        long agora = System.currentTimeMillis();
+        long conhecido = bloqueiosConhecidos.getOrDefault(chave, 0L);
+        if (conhecido > agora) return conhecido;
+        if (naoBloqueados.getIfPresent(chave) != null) return 0;
+
+        Long desbloqueio;
+        try {
+            desbloqueio = loja.buscar(PREFIXO_BLOQUEIO + chave);
+        } catch (Exception ex) {
+            // sem a loja vale o que esta réplica sabe; o cache negativo evita uma consulta por requisição
+            System.err.println("Falha ao consultar bloqueio de login na loja compartilhada: " + ex.getMessage());
+            desbloqueio = null;
+        }
+        if (desbloqueio != null && desbloqueio > agora) {
+            bloqueiosConhecidos.merge(chave, desbloqueio, Math::max);
+            return desbloqueio;
+        }
+        naoBloqueados.put(chave, Boolean.TRUE);
+        return 0;
+    }
+
+    // envia resets e falhas acumulados
+    void sincronizar() {
+        List<String> resets = new ArrayList<>();
+        for (String chave : resetsPendentes) {
+            if (resetsPendentes.remove(chave)) {
+                resets.add(PREFIXO_TENTATIVAS + chave);
+            }
+        }
+        loja.remover(resets);
+
+        for (String chave : falhasPendentes.keySet()) {
+            enviar(chave);
+        }
+
+        long agora = System.currentTimeMillis();
+        bloqueiosConhecidos.values().removeIf(desbloqueio -> desbloqueio <= agora);
+
+        if (++ciclos % CICLOS_ENTRE_LIMPEZAS == 0) {
+            loja.removerExpirados();
+        }
+    }
+
+    private void enviar(String chave) {
+        if (resetsPendentes.remove(chave)) {
+            loja.remover(List.of(PREFIXO_TENTATIVAS + chave));
+        }
+        Integer delta = falhasPendentes.remove(chave);
+        if (delta == null) return;
+
+        long total;
+        try {
+            total = loja.incrementar(PREFIXO_TENTATIVAS + chave, delta, duracaoBloqueio);
+        } catch (RuntimeException ex) {
+            falhasPendentes.merge(chave, delta, Integer::sum);
+            throw ex;
+        }
+        totaisConhecidos.put(chave, total);
+
+        if (total >= tentativas) {
+            long desbloqueio = System.currentTimeMillis() + duracaoBloqueio.toMillis();
+            loja.definir(PREFIXO_BLOQUEIO + chave, desbloqueio, duracaoBloqueio);
+            bloqueiosConhecidos.put(chave, desbloqueio);
+            naoBloqueados.invalidate(chave);
+        }
+    }
+
+    // uma exceção não tratada cancelaria o agendamento, então falhas da loja só são registradas
+    private void sincronizarComSeguranca() {
+        try {
+            sincronizar();
+        } catch (Exception ex) {
+            System.err.println("Falha ao sincronizar tentativas de login: " + ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        agendador.shutdown();
+        sincronizarComSeguranca();
+    }
+}
@@ -0,0 +1,70 @@
+package com.ufrpe.main.service;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// backend padrão: contadores e bloqueios só existem nesta réplica e somem ao reiniciar
+@Service
+@ConditionalOnProperty(name = "seguranca.login.backend", havingValue = "memoria", matchIfMissing = true)
+public class BackendTentativasMemoria implements BackendTentativas {
+    private final int tentativas;
+    private final long duracaoBloqueioMinutos;
+    private final LoadingCache<String, Integer> cache;
+    private final ConcurrentHashMap<String, Long> blockedUsers = new ConcurrentHashMap<>();
+
+    public BackendTentativasMemoria(@Value("${seguranca.login.tentativas:3}") int tentativas,
+                                    @Value("${seguranca.login.bloqueio-minutos:15}") long duracaoBloqueioMinutos) {
+        this.tentativas = tentativas;
+        this.duracaoBloqueioMinutos = duracaoBloqueioMinutos;
+        cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(duracaoBloqueioMinutos, TimeUnit.MINUTES) //bloqueio de 15 min após 3 tentativas
+                .build(new  CacheLoader<String, Integer>() {
+                    public Integer load(String key){
+                        return 0;
+                    }});
+    }
+
+    @Override
+    public void registrarFalha(String key){
+        int tentativa = 0;
+        try{
+            tentativa = cache.get(key);
+        }catch (ExecutionException e){
+            tentativa = 0;
+        }
+        tentativa++;
+        cache.put(key,tentativa);
+
+        if(tentativa >= tentativas){
+            long tempoDesbloqueado = System.currentTimeMillis() + (duracaoBloqueioMinutos * 60 * 1000);
+            blockedUsers.put(key,tempoDesbloqueado);
+        }
+    }
+
+    @Override
+    public void registrarSucesso(String key){
+        cache.invalidate(key);
+    }
+
+    @Override
+    public long desbloqueioEm(String key) {
+        Long unlockTime = blockedUsers.get(key);
+        if (unlockTime == null) return 0;
+
+        if (System.currentTimeMillis() < unlockTime) {
+            return unlockTime;
+        }
+        // O tempo já passou, removemos o bloqueio e limpamos o cache de tentativas
+        blockedUsers.remove(key);
+        cache.invalidate(key);
+        return 0;
+    }
+}
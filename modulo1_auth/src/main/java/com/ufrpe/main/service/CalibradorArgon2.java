@@ -0,0 +1,48 @@
+package com.ufrpe.main.service;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+
+import java.util.Arrays;
+
+/**
+ * Escolhe os parâmetros do Argon2 para a máquina atual: usa a memória configurada por hash e calcula
+ * quantas iterações cabem na latência alvo de verificação. Se nem o mínimo de iterações cabe, a memória é reduzida
+ * pela metade. O resultado nunca fica abaixo do custo fixo usado antes da calibração (m=60000, t=10):
+ * numa máquina lenta ou sobrecarregada na subida a verificação fica mais lenta que o alvo, mas o hash não enfraquece.
+ */
+public final class CalibradorArgon2 {
+    static final int MEMORIA_MINIMA_KB = 60000;
+    static final int ITERACOES_MINIMAS = 10;
+    static final int ITERACOES_MAXIMAS = 20;
+    private static final String SENHA_TESTE = "calibracao-argon2";
+
+    private CalibradorArgon2() {
+    }
+
+    public static ParametrosArgon2 calibrar(long latenciaAlvoMs, int memoriaMaximaKb, int paralelismo) {
+        int memoria = Math.max(MEMORIA_MINIMA_KB, memoriaMaximaKb);
+        while (true) {
+            double msPorIteracao = medirMs(new ParametrosArgon2(memoria, 1, paralelismo));
+            int iteracoes = (int) Math.max(1, Math.round(latenciaAlvoMs / msPorIteracao));
+            if (iteracoes >= ITERACOES_MINIMAS || memoria == MEMORIA_MINIMA_KB) {
+                int limitadas = Math.max(ITERACOES_MINIMAS, Math.min(iteracoes, ITERACOES_MAXIMAS));
+                return new ParametrosArgon2(memoria, limitadas, paralelismo);
+            }
+            memoria = Math.max(MEMORIA_MINIMA_KB, memoria / 2);
+        }
+    }
+
+    // mediana de três verificações, depois de uma execução de aquecimento
+    static double medirMs(ParametrosArgon2 parametros) {
+        Argon2PasswordEncoder encoder = parametros.criarEncoder();
+        String hash = encoder.encode(SENHA_TESTE);
+        double[] amostras = new double[3];
+        for (int i = 0; i < amostras.length; i++) {
+            long inicio = System.nanoTime();
+            encoder.matches(SENHA_TESTE, hash);
+            amostras[i] = (System.nanoTime() - inicio) / 1_000_000.0;
+        }
+        Arrays.sort(amostras);
+        return amostras[1];
+    }
+}
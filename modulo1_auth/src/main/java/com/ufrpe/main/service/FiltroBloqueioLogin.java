@@ -0,0 +1,68 @@
+package com.ufrpe.main.service;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Recusa o login de um cliente bloqueado antes do Spring Security: sem ler o corpo, sem AuthenticationManager
+ * e sem exceções. Escreve direto o mesmo 429 que o GlobalExceptionHandler devolveria para a LockedException,
+ * com Retry-After. Fica logo depois do FiltroRastreamento, então a recusa ainda aparece no traço.
+ * O LockedException do AuthorizationService continua valendo para quem for bloqueado no meio da requisição.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class FiltroBloqueioLogin extends OncePerRequestFilter {
+    private static final byte[] INICIO_CORPO = "{\"message\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FIM_CORPO = "\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final LoginAttemptService loginAttemptService;
+
+    public FiltroBloqueioLogin(LoginAttemptService loginAttemptService) {
+        this.loginAttemptService = loginAttemptService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !"/auth/login".equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        long restanteMs = loginAttemptService.getMillisRemaining(LoginAttemptService.chaveDoCliente(request));
+        if (restanteMs <= 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long segundosRestante = restanteMs / 1000;
+        // mesmo texto do AuthorizationService, montado sem String.format
+        byte[] mensagem = ("Muitas tentativas de login. Tente novamente em " + segundosRestante / 60 + " minutos e "
+                + segundosRestante % 60 + " segundos").getBytes(StandardCharsets.UTF_8);
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        // arredonda para cima: Retry-After 0 faria o cliente tentar de novo ainda bloqueado
+        response.setHeader("Retry-After", String.valueOf((restanteMs + 999) / 1000));
+        // o controller libera qualquer origem (@CrossOrigin), a recusa antecipada precisa fazer o mesmo
+        if (request.getHeader("Origin") != null) {
+            response.setHeader("Access-Control-Allow-Origin", "*");
+        }
+        response.setContentType("application/json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentLength(INICIO_CORPO.length + mensagem.length + FIM_CORPO.length);
+
+        var saida = response.getOutputStream();
+        saida.write(INICIO_CORPO);
+        saida.write(mensagem);
+        saida.write(FIM_CORPO);
+    }
+}
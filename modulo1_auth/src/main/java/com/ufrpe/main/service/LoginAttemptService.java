@@ -1,70 +1,29 @@
 package com.ufrpe.main.service;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-
+// a contagem e os bloqueios ficam no BackendTentativas configurado em seguranca.login.backend
 @Service
 public class LoginAttemptService {
-    private final int tentativas = 3;
-    private final long BLOCK_DURATION_MINUTES = 15;
-    private final LoadingCache<String, Integer> cache;
-    private final ConcurrentHashMap<String, Long> blockedUsers = new ConcurrentHashMap<>();
+    private final BackendTentativas backend;
 
-    public LoginAttemptService() {
-        super();
-        cache = CacheBuilder.newBuilder()
-                .expireAfterWrite(BLOCK_DURATION_MINUTES, TimeUnit.MINUTES) //bloqueio de 15 min após 3 tentativas
-                .build(new  CacheLoader<String, Integer>() {
-                    public Integer load(String key){
-                        return 0;
-                    }});
+    public LoginAttemptService(BackendTentativas backend) {
+        this.backend = backend;
     }
 
     //chamado quando o login falhar
     public void loginFailed(String key){
-        int tentativa = 0;
-        try{
-            tentativa = cache.get(key);
-        }catch (ExecutionException e){
-            tentativa = 0;
-        }
-        tentativa++;
-        cache.put(key,tentativa);
-
-        if(tentativa >= tentativas){
-            long tempoDesbloqueado = System.currentTimeMillis() + (BLOCK_DURATION_MINUTES * 60 * 1000);
-            blockedUsers.put(key,tempoDesbloqueado);
-        }
+        backend.registrarFalha(key);
     }
 
     public boolean isBlocked(String key) {
-        // Verifica se existe um bloqueio registrado para esse IP
-        if (blockedUsers.containsKey(key)) {
-            long unlockTime = blockedUsers.get(key);
-
-            // Se o tempo atual é menor que o tempo de desbloqueio, ainda está bloqueado
-            if (System.currentTimeMillis() < unlockTime) {
-                return true;
-            } else {
-                // O tempo já passou, removemos o bloqueio e limpamos o cache de tentativas
-                blockedUsers.remove(key);
-                cache.invalidate(key);
-                return false;
-            }
-        }
-        return false;
+        // Se o tempo atual é menor que o tempo de desbloqueio, ainda está bloqueado
+        return System.currentTimeMillis() < backend.desbloqueioEm(key);
     }
 
     public long getSecondsRemaining(String key) {
-        if (!blockedUsers.containsKey(key)) return 0;
-
-        long unlockTime = blockedUsers.get(key);
+        long unlockTime = backend.desbloqueioEm(key);
         long now = System.currentTimeMillis();
 
         if (now >= unlockTime) return 0;
@@ -73,9 +32,20 @@ public class LoginAttemptService {
         return (unlockTime - now) / 1000;
     }
 
+    public long getMillisRemaining(String key) {
+        return Math.max(0, backend.desbloqueioEm(key) - System.currentTimeMillis());
+    }
+
+    // a chave do bloqueio em todos os pontos (filtro, AuthorizationService e listeners de autenticação):
+    // o primeiro IP do X-Forwarded-For ou o endereço remoto
+    public static String chaveDoCliente(HttpServletRequest request) {
+        final String xfHeader = request.getHeader("X-Forwarded-For");
+        return xfHeader == null ? request.getRemoteAddr() : xfHeader.split(",")[0];
+    }
+
     // reseta o contador se o login foi sucesso
     public void loginSucesso(String key){
-        cache.invalidate(key);
+        backend.registrarSucesso(key);
     }
 
 }
@@ -0,0 +1,20 @@
+package com.ufrpe.main.service;
+
+import java.time.Duration;
+import java.util.Collection;
+
+// armazenamento chave/valor compartilhado entre as réplicas do módulo de autenticação
+public interface LojaCompartilhada {
+
+    // soma delta ao valor (zerado se expirou), renova a expiração e retorna o novo total
+    long incrementar(String chave, long delta, Duration ttl);
+
+    void definir(String chave, long valor, Duration ttl);
+
+    void remover(Collection<String> chaves);
+
+    // valor da chave se ainda válida, ou null
+    Long buscar(String chave);
+
+    void removerExpirados();
+}
@@ -0,0 +1,68 @@
+package com.ufrpe.main.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+// usa o próprio Postgres que as réplicas já compartilham como loja das tentativas de login
+@Component
+@ConditionalOnProperty(name = "seguranca.login.backend", havingValue = "compartilhado")
+public class LojaCompartilhadaJdbc implements LojaCompartilhada {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LojaCompartilhadaJdbc(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void criarTabela() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS controle_login (" +
+                "chave VARCHAR(255) PRIMARY KEY, valor BIGINT NOT NULL, expira_em BIGINT NOT NULL)");
+    }
+
+    @Override
+    public long incrementar(String chave, long delta, Duration ttl) {
+        long agora = System.currentTimeMillis();
+        return jdbcTemplate.queryForObject(
+                "INSERT INTO controle_login (chave, valor, expira_em) VALUES (?, ?, ?) " +
+                        "ON CONFLICT (chave) DO UPDATE SET " +
+                        "valor = CASE WHEN controle_login.expira_em <= ? THEN excluded.valor ELSE controle_login.valor + excluded.valor END, " +
+                        "expira_em = excluded.expira_em RETURNING valor",
+                Long.class, chave, delta, agora + ttl.toMillis(), agora);
+    }
+
+    @Override
+    public void definir(String chave, long valor, Duration ttl) {
+        jdbcTemplate.update(
+                "INSERT INTO controle_login (chave, valor, expira_em) VALUES (?, ?, ?) " +
+                        "ON CONFLICT (chave) DO UPDATE SET valor = excluded.valor, expira_em = excluded.expira_em",
+                chave, valor, System.currentTimeMillis() + ttl.toMillis());
+    }
+
+    @Override
+    public void remover(Collection<String> chaves) {
+        if (chaves.isEmpty()) return;
+        jdbcTemplate.update("DELETE FROM controle_login WHERE chave = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", chaves.toArray())));
+    }
+
+    // busca pela chave primária: o custo não depende de quantos IPs estão bloqueados
+    @Override
+    public Long buscar(String chave) {
+        List<Long> valores = jdbcTemplate.queryForList(
+                "SELECT valor FROM controle_login WHERE chave = ? AND expira_em > ?",
+                Long.class, chave, System.currentTimeMillis());
+        return valores.isEmpty() ? null : valores.get(0);
+    }
+
+    @Override
+    public void removerExpirados() {
+        jdbcTemplate.update("DELETE FROM controle_login WHERE expira_em <= ?", System.currentTimeMillis());
+    }
+}
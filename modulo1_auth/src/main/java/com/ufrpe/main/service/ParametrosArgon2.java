@@ -0,0 +1,45 @@
+package com.ufrpe.main.service;
+
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+
+// custo do Argon2 (memória em KiB, iterações e paralelismo), o mesmo formato gravado no hash: $argon2id$v=19$m=..,t=..,p=..$
+public record ParametrosArgon2(int memoriaKb, int iteracoes, int paralelismo) {
+
+    public Argon2PasswordEncoder criarEncoder() {
+        return new Argon2PasswordEncoder(16, 32, paralelismo, memoriaKb, iteracoes);
+    }
+
+    /**
+     * Compara primeiro a memória e depois as iterações. Com a mesma memória, só é mais fraco quem ficou abaixo
+     * da faixa de tolerância: a calibração varia um pouco entre réplicas e reinícios, e isso não deve recodificar senhas.
+     */
+    public boolean maisFracoQue(ParametrosArgon2 atual, double toleranciaIteracoes) {
+        if (memoriaKb != atual.memoriaKb) return memoriaKb < atual.memoriaKb;
+        return iteracoes < atual.iteracoes * (1 - toleranciaIteracoes);
+    }
+
+    // lê os parâmetros de um hash armazenado; null se não for um hash Argon2
+    public static ParametrosArgon2 doHash(String hash) {
+        if (hash == null || !hash.startsWith("$argon2")) return null;
+        for (String parte : hash.split("\\$")) {
+            if (!parte.startsWith("m=")) continue;
+            int m = 0, t = 0, p = 0;
+            for (String par : parte.split(",")) {
+                String[] chaveValor = par.split("=");
+                if (chaveValor.length != 2) return null;
+                try {
+                    switch (chaveValor[0]) {
+                        case "m" -> m = Integer.parseInt(chaveValor[1]);
+                        case "t" -> t = Integer.parseInt(chaveValor[1]);
+                        case "p" -> p = Integer.parseInt(chaveValor[1]);
+                        default -> { }
+                    }
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return new ParametrosArgon2(m, t, p);
+        }
+        return null;
+    }
+}
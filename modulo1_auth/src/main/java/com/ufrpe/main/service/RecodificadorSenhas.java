@@ -0,0 +1,74 @@
+package com.ufrpe.main.service;
+
+import com.ufrpe.main.models.Usuario;
+import com.ufrpe.main.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// recodifica, fora da thread da requisição, senhas cujo hash é mais fraco que os parâmetros calibrados (nunca rebaixa)
+@Service
+public class RecodificadorSenhas {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private ParametrosArgon2 parametrosAtuais;
+
+    @Value("${seguranca.argon2.tolerancia-iteracoes:0.25}")
+    private double toleranciaIteracoes;
+
+    // uma thread só: a recodificação custa o mesmo que um login e não deve competir com eles
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1000), r -> {
+                Thread thread = new Thread(r, "recodificacao-senhas");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private final Set<Integer> emAndamento = ConcurrentHashMap.newKeySet();
+
+    public boolean precisaRecodificar(String hash) {
+        ParametrosArgon2 parametros = ParametrosArgon2.doHash(hash);
+        return parametros != null && parametros.maisFracoQue(parametrosAtuais, toleranciaIteracoes);
+    }
+
+    // chamado depois de um login bem-sucedido, com a senha que acabou de ser verificada
+    public void recodificarSeNecessario(Usuario usuario, String senha) {
+        String hashAntigo = usuario.getPassword();
+        if (!precisaRecodificar(hashAntigo) || !emAndamento.add(usuario.getId())) return;
+
+        try {
+            executor.execute(() -> {
+                try {
+                    // só troca se o hash ainda for o mesmo que foi verificado
+                    userRepository.atualizarSenha(usuario.getId(), hashAntigo, passwordEncoder.encode(senha));
+                } catch (Exception ex) {
+                    System.err.println("Falha ao recodificar senha: " + ex.getMessage());
+                } finally {
+                    emAndamento.remove(usuario.getId());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // fila cheia: o próximo login do usuário tenta de novo
+            emAndamento.remove(usuario.getId());
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdown();
+    }
+}
@@ -1,6 +1,9 @@
 package com.ufrpe.main.service;
 
+import com.ufrpe.main.rastreamento.PasswordEncoderRastreado;
+import com.ufrpe.main.rastreamento.Rastreador;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -9,7 +12,6 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -46,6 +48,9 @@ public class SecurityConfig {
                         .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**", "/api-docs/**", "/h2-console/**").permitAll()
                         .requestMatchers(HttpMethod.POST, "/auth/register").permitAll()
                         .requestMatchers(HttpMethod.POST, "/auth/login").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/auth/refresh").permitAll()
+                        .requestMatchers("/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/usuarios/menuAdmin").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.GET, "/api/usuarios/menuUser").hasRole("USER")
                         .requestMatchers(HttpMethod.GET, "/api/**").hasRole("ADMIN")
@@ -75,8 +80,21 @@ public class SecurityConfig {
         return AuthcConfig.getAuthenticationManager();
 
     }
+    // com a calibração ligada, as iterações são medidas no hardware atual para atingir a latência alvo
     @Bean
-    public PasswordEncoder  passwordEncoder() {
-        return new Argon2PasswordEncoder(16,32,1,60000,10);
+    public ParametrosArgon2 parametrosArgon2(@Value("${seguranca.argon2.calibrar:true}") boolean calibrar,
+                                             @Value("${seguranca.argon2.latencia-alvo-ms:250}") long latenciaAlvoMs,
+                                             @Value("${seguranca.argon2.memoria-kb:60000}") int memoriaKb,
+                                             @Value("${seguranca.argon2.iteracoes:10}") int iteracoes,
+                                             @Value("${seguranca.argon2.paralelismo:1}") int paralelismo) {
+        if (!calibrar) {
+            return new ParametrosArgon2(memoriaKb, iteracoes, paralelismo);
+        }
+        return CalibradorArgon2.calibrar(latenciaAlvoMs, memoriaKb, paralelismo);
+    }
+
+    @Bean
+    public PasswordEncoder  passwordEncoder(Rastreador rastreador, ParametrosArgon2 parametrosArgon2) {
+        return new PasswordEncoderRastreado(parametrosArgon2.criarEncoder(), rastreador);
     }
 }
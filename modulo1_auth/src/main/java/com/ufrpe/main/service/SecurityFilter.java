@@ -1,5 +1,7 @@
 package com.ufrpe.main.service;
 
+import com.ufrpe.main.rastreamento.Rastreador;
+import com.ufrpe.main.rastreamento.Span;
 import com.ufrpe.main.repository.UserRepository;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -24,6 +26,8 @@ public class SecurityFilter extends OncePerRequestFilter {
     TokenService tokenService;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private Rastreador rastreador;
     /*
     // Lista de paths que o filtro deve IGNORAR
     private final List<AntPathRequestMatcher> excludedMatchers = Arrays.asList(
@@ -44,9 +48,11 @@ public class SecurityFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         var token = this.recoverToken(request);
         if (token != null) {
+            Span span = rastreador.iniciar("SecurityFilter", Span.INTERNO);
             try {
                 var login = tokenService.validateToken(token);
-                UserDetails user = userRepository.findByUsername(login);
+                UserDetails user = rastreador.emSpan("UserRepository.findByUsername", Span.CLIENTE,
+                        () -> userRepository.findByUsername(login));
 
                 // o token pode ser de um usuário que não existe mais no banco de dados, então é necessário verificar
                 if (user != null) {
@@ -56,6 +62,8 @@ public class SecurityFilter extends OncePerRequestFilter {
             }catch (Exception ex){
                 // captura tokens mal formados ou com defeitos
                 System.err.println("Token JWT inválido: " + ex.getMessage());
+            } finally {
+                rastreador.encerrar(span);
             }
         }
         filterChain.doFilter(request, response);
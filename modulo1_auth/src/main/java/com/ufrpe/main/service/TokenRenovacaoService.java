@@ -0,0 +1,111 @@
+package com.ufrpe.main.service;
+
+import com.ufrpe.main.exceptions.InvalidCredentialsException;
+import com.ufrpe.main.models.TokenRenovacao;
+import com.ufrpe.main.models.Usuario;
+import com.ufrpe.main.repository.TokenRenovacaoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Refresh tokens opacos e rotativos: cada uso troca o token por um novo da mesma família e estende a sessão
+ * (até o limite absoluto da família). Apresentar um token que já foi trocado indica vazamento e revoga a família.
+ * A renovação não passa pelo Argon2 nem pelo findByUsername: é uma busca pelo hash do token.
+ */
+@Service
+public class TokenRenovacaoService {
+
+    public record Renovacao(Usuario usuario, String refreshToken) {
+    }
+
+    private final SecureRandom aleatorio = new SecureRandom();
+
+    @Autowired
+    private TokenRenovacaoRepository tokenRenovacaoRepository;
+
+    @Value("${api.security.refresh.validade-dias:14}")
+    private long validadeDias;
+
+    @Value("${api.security.refresh.validade-maxima-dias:60}")
+    private long validadeMaximaDias;
+
+    // chamado no login: começa uma família nova
+    @Transactional
+    public String emitir(Usuario usuario) {
+        Instant agora = Instant.now();
+        return salvar(usuario, UUID.randomUUID(), agora.plus(Duration.ofDays(validadeMaximaDias)), agora);
+    }
+
+    // a revogação da família precisa ser gravada mesmo com a exceção de token inválido
+    @Transactional(noRollbackFor = InvalidCredentialsException.class)
+    public Renovacao renovar(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new InvalidCredentialsException("Refresh token inválido");
+        }
+        TokenRenovacao atual = tokenRenovacaoRepository.buscarPorHash(hash(refreshToken))
+                .orElseThrow(() -> new InvalidCredentialsException("Refresh token inválido"));
+
+        Instant agora = Instant.now();
+        if (atual.isUsado()) {
+            revogarPorReuso(atual);
+        }
+        // antes de marcar como usado: o cliente que tenta de novo com um token expirado recebe "expirado" outra vez,
+        // e não é confundido com reuso (a marca seria gravada, por causa do noRollbackFor)
+        if (!atual.getExpiraEm().isAfter(agora)) {
+            throw new InvalidCredentialsException("Refresh token expirado");
+        }
+        if (tokenRenovacaoRepository.marcarUsado(atual.getId()) == 0) {
+            revogarPorReuso(atual);
+        }
+
+        String novo = salvar(atual.getUsuario(), atual.getFamilia(), atual.getFamiliaExpiraEm(), agora);
+        return new Renovacao(atual.getUsuario(), novo);
+    }
+
+    private void revogarPorReuso(TokenRenovacao atual) {
+        tokenRenovacaoRepository.revogarFamilia(atual.getFamilia());
+        throw new InvalidCredentialsException("Refresh token já utilizado, sessão encerrada");
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${api.security.refresh.limpeza-ms:3600000}")
+    public void removerExpirados() {
+        tokenRenovacaoRepository.removerExpirados(Instant.now());
+    }
+
+    private String salvar(Usuario usuario, UUID familia, Instant familiaExpiraEm, Instant agora) {
+        byte[] bytes = new byte[32];
+        aleatorio.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Instant expiracaoDeslizante = agora.plus(Duration.ofDays(validadeDias));
+        TokenRenovacao registro = new TokenRenovacao();
+        registro.setHash(hash(token));
+        registro.setUsuario(usuario);
+        registro.setFamilia(familia);
+        registro.setFamiliaExpiraEm(familiaExpiraEm);
+        registro.setExpiraEm(expiracaoDeslizante.isBefore(familiaExpiraEm) ? expiracaoDeslizante : familiaExpiraEm);
+        tokenRenovacaoRepository.save(registro);
+        return token;
+    }
+
+    private static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -10,9 +10,8 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
 import javax.management.RuntimeErrorException;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -20,6 +19,8 @@ import java.util.stream.Collectors;
 public class TokenService {
     @Value("${api.security.token.secret}")
     private String secretKey;
+    @Value("${api.security.token.expiracao-minutos:120}")
+    private long expiracaoMinutos;
     public String generateToken(Usuario Usuario) {
 
         List<String> roles = Usuario.getAuthorities().stream()
@@ -57,6 +58,6 @@ public class TokenService {
     }
 
     private Instant getExpirationDate() {
-        return LocalDateTime.now().plusHours(2).toInstant(ZoneOffset.of("-03:00"));
+        return Instant.now().plus(Duration.ofMinutes(expiracaoMinutos));
     }
 }
@@ -0,0 +1,125 @@
+package com.ufrpe.main.controller;
+
+import com.ufrpe.main.models.PaginaUsuariosDTO;
+import com.ufrpe.main.models.UserRole;
+import com.ufrpe.main.models.Usuario;
+import com.ufrpe.main.models.UsuarioResumoDTO;
+import com.ufrpe.main.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// a consulta JPQL roda de verdade, num H2 em memória no lugar do Postgres
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class UsuarioAdminControllerTests {
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private UsuarioAdminController controller;
+
+	@BeforeEach
+	void criarUsuarios() {
+		controller = new UsuarioAdminController();
+		ReflectionTestUtils.setField(controller, "userRepository", userRepository);
+
+		List<Usuario> usuarios = new ArrayList<>();
+		for (int i = 0; i < 250; i++) {
+			usuarios.add(new Usuario(String.format("ana%03d", i), "hash", i % 5 == 0 ? UserRole.PREMIUM : UserRole.FREE));
+		}
+		// username não é único: o id desempata a ordem da busca por prefixo
+		usuarios.add(new Usuario("ana100", "hash", UserRole.FREE));
+		usuarios.add(new Usuario("ana_silva", "hash", UserRole.ADMIN));
+		usuarios.add(new Usuario("anaxsilva", "hash", UserRole.FREE));
+		usuarios.add(new Usuario("100%real", "hash", UserRole.FREE));
+		usuarios.add(new Usuario("1000real", "hash", UserRole.FREE));
+		userRepository.saveAll(usuarios);
+	}
+
+	@Test
+	void paginasPeloCursorNaoSeRepetemENaoPulamNinguem() {
+		Set<Integer> vistos = new HashSet<>();
+		int depoisDe = 0;
+		int paginas = 0;
+		while (true) {
+			PaginaUsuariosDTO pagina = buscar(null, null, depoisDe, 40);
+			paginas++;
+			assertNull(pagina.proximoUsername());
+			int anterior = depoisDe;
+			for (UsuarioResumoDTO usuario : pagina.usuarios()) {
+				assertTrue(usuario.id() > anterior, "ids fora de ordem");
+				assertTrue(vistos.add(usuario.id()), "usuário repetido entre páginas: " + usuario.username());
+				anterior = usuario.id();
+			}
+			if (pagina.proximoCursor() == null) break;
+			depoisDe = pagina.proximoCursor();
+		}
+		assertEquals(255, vistos.size());
+		assertEquals(7, paginas);
+	}
+
+	@Test
+	void buscaPorPrefixoPaginaPorUsernameEId() {
+		Set<Integer> vistos = new HashSet<>();
+		List<String> nomes = new ArrayList<>();
+		Integer depoisDe = 0;
+		String depoisDeUsername = null;
+		int paginas = 0;
+		while (true) {
+			PaginaUsuariosDTO pagina = controller.buscar("ana", null, depoisDe, depoisDeUsername, 40).getBody();
+			paginas++;
+			for (UsuarioResumoDTO usuario : pagina.usuarios()) {
+				assertTrue(vistos.add(usuario.id()), "usuário repetido entre páginas: " + usuario.username());
+				nomes.add(usuario.username());
+			}
+			if (pagina.proximoCursor() == null) break;
+			depoisDe = pagina.proximoCursor();
+			depoisDeUsername = pagina.proximoUsername();
+		}
+		assertEquals(253, vistos.size());
+		assertEquals(7, paginas);
+		assertEquals(nomes.stream().sorted().toList(), nomes);
+		// os dois ana100 saem juntos, mesmo se a página anterior terminou no primeiro deles
+		assertEquals(2, nomes.stream().filter("ana100"::equals).count());
+		assertFalse(nomes.contains("100%real"));
+	}
+
+	@Test
+	void porcentoESublinhadoSaoTratadosComoTexto() {
+		assertEquals(List.of("ana_silva"), nomes(buscar("ana_", null, 0, 50)));
+		assertEquals(List.of("100%real"), nomes(buscar("100%", null, 0, 50)));
+	}
+
+	@Test
+	void filtroDeRoleEhOpcional() {
+		assertEquals(List.of("ana_silva"), nomes(buscar("ana", UserRole.ADMIN, 0, 50)));
+		assertEquals(50, buscar("ana", UserRole.PREMIUM, 0, 200).usuarios().size());
+		assertEquals(200, buscar(null, null, 0, 200).usuarios().size());
+		assertEquals(2, buscar("ana100", null, 0, 50).usuarios().size());
+	}
+
+	@Test
+	void limiteEhRestritoAoMaximo() {
+		PaginaUsuariosDTO pagina = buscar(null, null, 0, 10_000);
+		assertEquals(200, pagina.usuarios().size());
+		assertNotNull(pagina.proximoCursor());
+		assertEquals(1, buscar(null, null, 0, -5).usuarios().size());
+	}
+
+	private PaginaUsuariosDTO buscar(String prefixo, UserRole role, int depoisDe, int limite) {
+		return controller.buscar(prefixo, role, depoisDe, null, limite).getBody();
+	}
+
+	private static List<String> nomes(PaginaUsuariosDTO pagina) {
+		return pagina.usuarios().stream().map(UsuarioResumoDTO::username).toList();
+	}
+}
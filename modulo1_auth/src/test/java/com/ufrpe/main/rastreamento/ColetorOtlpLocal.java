@@ -0,0 +1,40 @@
+package com.ufrpe.main.rastreamento;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// coletor OTLP/HTTP falso que só guarda os corpos recebidos em /v1/traces
+class ColetorOtlpLocal implements AutoCloseable {
+
+	private final HttpServer servidor;
+	private final BlockingQueue<String> recebidos = new LinkedBlockingQueue<>();
+
+	ColetorOtlpLocal() throws IOException {
+		servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		servidor.createContext("/v1/traces", troca -> {
+			recebidos.add(new String(troca.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+			troca.sendResponseHeaders(200, -1);
+			troca.close();
+		});
+		servidor.start();
+	}
+
+	String endpoint() {
+		return "http://127.0.0.1:" + servidor.getAddress().getPort() + "/v1/traces";
+	}
+
+	String proximo(long segundos) throws InterruptedException {
+		return recebidos.poll(segundos, TimeUnit.SECONDS);
+	}
+
+	@Override
+	public void close() {
+		servidor.stop(0);
+	}
+}
@@ -0,0 +1,92 @@
+package com.ufrpe.main.rastreamento;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RastreadorTests {
+
+	private static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00";
+
+	private ColetorOtlpLocal coletor;
+	private ExportadorOtlp exportador;
+	private Rastreador rastreador;
+
+	@BeforeEach
+	void iniciar() throws Exception {
+		coletor = new ColetorOtlpLocal();
+		exportador = new ExportadorOtlp(coletor.endpoint(), "modulo1_auth", 16);
+		// taxa zero: só a amostragem no fim (lento ou com erro) pode manter o traço
+		rastreador = new Rastreador(exportador, 0.0, 50);
+	}
+
+	@AfterEach
+	void encerrar() throws Exception {
+		exportador.encerrar();
+		coletor.close();
+	}
+
+	@Test
+	void continuaTraceparentRecebido() {
+		Span raiz = rastreador.iniciarRaiz(TRACEPARENT, "POST /auth/login");
+		String propagado = rastreador.traceparent(raiz);
+		rastreador.encerrarRaiz(raiz);
+
+		assertTrue(propagado.startsWith("00-4bf92f3577b34da6a3ce929d0e0e4736-"));
+		assertNotEquals("00f067aa0ba902b7", propagado.substring(36, 52));
+		assertTrue(propagado.endsWith("-00"));
+	}
+
+	@Test
+	void mantemTracoLentoComSpansFilhos() throws Exception {
+		Span raiz = rastreador.iniciarRaiz(TRACEPARENT, "POST /auth/login");
+		rastreador.emSpan("PasswordEncoder.matches", Span.INTERNO, () -> {
+			dormir(60);
+			return true;
+		});
+		rastreador.encerrarRaiz(raiz);
+
+		String corpo = coletor.proximo(5);
+		assertNotNull(corpo);
+		assertTrue(corpo.contains("\"traceId\":\"4bf92f3577b34da6a3ce929d0e0e4736\""));
+		assertTrue(corpo.contains("\"parentSpanId\":\"00f067aa0ba902b7\""));
+		assertTrue(corpo.contains("\"name\":\"PasswordEncoder.matches\""));
+		assertTrue(corpo.contains("\"stringValue\":\"modulo1_auth\""));
+	}
+
+	@Test
+	void mantemTracoComErroEDescartaRapido() throws Exception {
+		Span rapido = rastreador.iniciarRaiz(null, "GET /api/rapido");
+		rastreador.encerrarRaiz(rapido);
+
+		Span comErro = rastreador.iniciarRaiz(null, "GET /api/erro");
+		assertThrows(IllegalStateException.class, () -> rastreador.emSpan("UserRepository.findByUsername", Span.CLIENTE, () -> {
+			throw new IllegalStateException("banco fora do ar");
+		}));
+		rastreador.encerrarRaiz(comErro);
+
+		String corpo = coletor.proximo(5);
+		assertNotNull(corpo);
+		assertTrue(corpo.contains("GET /api/erro"));
+		assertTrue(corpo.contains("\"status\":{\"code\":2}"));
+		assertFalse(corpo.contains("GET /api/rapido"));
+		assertNull(coletor.proximo(1));
+	}
+
+	@Test
+	void semRequisicaoRastreadaNaoCriaSpans() {
+		assertNull(rastreador.iniciar("UserRepository.findByUsername", Span.CLIENTE));
+		assertEquals("ok", rastreador.emSpan("UserRepository.findByUsername", Span.CLIENTE, () -> "ok"));
+	}
+
+	private static void dormir(long ms) {
+		try {
+			Thread.sleep(ms);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.ufrpe.main.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackendTentativasCompartilhadoTests {
+
+	private static final String IP = "10.0.0.7";
+
+	private LojaCompartilhadaEmMemoria loja;
+	private BackendTentativasCompartilhado replicaA;
+	private BackendTentativasCompartilhado replicaB;
+	private LoginAttemptService servicoA;
+	private LoginAttemptService servicoB;
+
+	@BeforeEach
+	void criarReplicas() {
+		loja = new LojaCompartilhadaEmMemoria();
+		// intervalo longo: as sincronizações do teste são feitas manualmente; sem cache negativo
+		replicaA = new BackendTentativasCompartilhado(loja, 3, 15, 3_600_000, 0);
+		replicaB = new BackendTentativasCompartilhado(loja, 3, 15, 3_600_000, 0);
+		servicoA = new LoginAttemptService(replicaA);
+		servicoB = new LoginAttemptService(replicaB);
+	}
+
+	@AfterEach
+	void encerrarReplicas() {
+		replicaA.encerrar();
+		replicaB.encerrar();
+	}
+
+	@Test
+	void tentativasSomamEntreReplicas() {
+		servicoA.loginFailed(IP);
+		servicoB.loginFailed(IP);
+		replicaA.sincronizar();
+		replicaB.sincronizar();
+		assertFalse(servicoA.isBlocked(IP));
+
+		servicoA.loginFailed(IP);
+		replicaA.sincronizar();
+		replicaB.sincronizar();
+
+		assertTrue(servicoA.isBlocked(IP));
+		assertTrue(servicoB.isBlocked(IP));
+		assertTrue(servicoB.getSecondsRemaining(IP) > 14 * 60);
+	}
+
+	@Test
+	void bloqueioValeNaOutraReplicaSemEsperarSincronizacao() {
+		for (int i = 0; i < 3; i++) {
+			servicoA.loginFailed(IP);
+		}
+		assertTrue(servicoA.isBlocked(IP));
+		assertTrue(servicoB.isBlocked(IP));
+	}
+
+	@Test
+	void consultasDeBloqueioBuscamUmaChavePorVezEFicamEmCache() {
+		BackendTentativasCompartilhado comCache = new BackendTentativasCompartilhado(loja, 3, 15, 3_600_000, 60_000);
+		LoginAttemptService servico = new LoginAttemptService(comCache);
+		for (int i = 0; i < 3; i++) {
+			servicoA.loginFailed(IP);
+		}
+
+		try {
+			int antes = loja.operacoes;
+			for (int i = 0; i < 1000; i++) {
+				servico.isBlocked("192.168.0." + (i % 250));
+				assertTrue(servico.isBlocked(IP));
+			}
+			// uma busca por IP distinto, incluindo as respostas negativas, e uma para o bloqueado
+			assertEquals(antes + 251, loja.operacoes);
+		} finally {
+			comCache.encerrar();
+		}
+	}
+
+	@Test
+	void sucessoZeraContadorEmTodasAsReplicas() {
+		servicoA.loginFailed(IP);
+		servicoB.loginFailed(IP);
+		replicaA.sincronizar();
+		replicaB.sincronizar();
+
+		servicoB.loginSucesso(IP);
+		replicaB.sincronizar();
+
+		servicoA.loginFailed(IP);
+		servicoA.loginFailed(IP);
+		replicaA.sincronizar();
+		assertFalse(servicoA.isBlocked(IP));
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.ufrpe.main.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// a calibração acerta a latência alvo de verificação quando não bate nos limites de iterações
+// depende do relógio da máquina, por isso só roda com -Dgroups=benchmark
+@Tag("benchmark")
+class CalibradorArgon2DesempenhoTests {
+
+	@Test
+	void calibracaoRespeitaLimitesEAtingeAlvoAproximado() {
+		ParametrosArgon2 parametros = CalibradorArgon2.calibrar(250, CalibradorArgon2.MEMORIA_MINIMA_KB, 1);
+
+		assertEquals(CalibradorArgon2.MEMORIA_MINIMA_KB, parametros.memoriaKb());
+		assertTrue(parametros.iteracoes() >= CalibradorArgon2.ITERACOES_MINIMAS
+				&& parametros.iteracoes() <= CalibradorArgon2.ITERACOES_MAXIMAS);
+		if (parametros.iteracoes() > CalibradorArgon2.ITERACOES_MINIMAS && parametros.iteracoes() < CalibradorArgon2.ITERACOES_MAXIMAS) {
+			double ms = CalibradorArgon2.medirMs(parametros);
+			assertTrue(ms > 100 && ms < 400, "verificação levou " + ms + " ms");
+		}
+	}
+
+}
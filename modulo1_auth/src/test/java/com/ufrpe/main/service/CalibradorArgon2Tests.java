@@ -0,0 +1,40 @@
+package com.ufrpe.main.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalibradorArgon2Tests {
+
+	@Test
+	void leParametrosDoHashGerado() {
+		ParametrosArgon2 parametros = new ParametrosArgon2(CalibradorArgon2.MEMORIA_MINIMA_KB, 2, 1);
+		String hash = parametros.criarEncoder().encode("senha");
+
+		assertEquals(parametros, ParametrosArgon2.doHash(hash));
+		assertEquals(new ParametrosArgon2(60000, 10, 1),
+				ParametrosArgon2.doHash("$argon2id$v=19$m=60000,t=10,p=1$c2FsdA$aGFzaA"));
+		assertNull(ParametrosArgon2.doHash("$2a$10$abcdefghijklmnopqrstuv"));
+	}
+
+	@Test
+	void soHashesMaisFracosSaoConsideradosParaRecodificar() {
+		ParametrosArgon2 atual = new ParametrosArgon2(60000, 8, 1);
+
+		assertTrue(new ParametrosArgon2(30000, 20, 1).maisFracoQue(atual, 0.25));
+		assertTrue(new ParametrosArgon2(60000, 5, 1).maisFracoQue(atual, 0.25));
+		// variação normal de calibração entre réplicas
+		assertFalse(new ParametrosArgon2(60000, 7, 1).maisFracoQue(atual, 0.25));
+		assertFalse(new ParametrosArgon2(60000, 8, 1).maisFracoQue(atual, 0.25));
+		// hash mais forte que o atual nunca é rebaixado
+		assertFalse(new ParametrosArgon2(60000, 12, 1).maisFracoQue(atual, 0.25));
+		assertFalse(new ParametrosArgon2(120000, 2, 1).maisFracoQue(atual, 0.25));
+	}
+
+	@Test
+	void calibracaoNuncaFicaAbaixoDoCustoAnterior() {
+		// alvo de 1 ms e memória configurada abaixo do mínimo: qualquer máquina cairia abaixo do custo fixo antigo
+		assertEquals(new ParametrosArgon2(60000, 10, 1), CalibradorArgon2.calibrar(1, 1024, 1));
+	}
+
+}
@@ -0,0 +1,117 @@
+package com.ufrpe.main.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ufrpe.main.exceptions.GlobalExceptionHandler;
+import com.ufrpe.main.models.AuthDTO;
+import com.ufrpe.main.rastreamento.ExportadorOtlp;
+import com.ufrpe.main.rastreamento.Rastreador;
+import com.ufrpe.main.repository.UserRepository;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static com.ufrpe.main.service.FiltroBloqueioLoginTests.CORPO;
+import static com.ufrpe.main.service.FiltroBloqueioLoginTests.IP;
+import static com.ufrpe.main.service.FiltroBloqueioLoginTests.login;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// carga de logins vindos de um IP bloqueado: recusa no filtro contra o caminho antigo até o GlobalExceptionHandler
+// depende do relógio da máquina, por isso só roda com -Dgroups=benchmark
+@Tag("benchmark")
+class FiltroBloqueioLoginCargaTests {
+
+	private static final int REQUISICOES = 50_000;
+
+	private LoginAttemptService loginAttemptService;
+	private FiltroBloqueioLogin filtro;
+
+	@BeforeEach
+	void bloquearIp() {
+		loginAttemptService = new LoginAttemptService(new BackendTentativasMemoria(3, 15));
+		for (int i = 0; i < 3; i++) {
+			loginAttemptService.loginFailed(IP);
+		}
+		filtro = new FiltroBloqueioLogin(loginAttemptService);
+	}
+
+	@Test
+	void recusaNoFiltroEhMaisBarataQueOCaminhoPorExcecao() throws Exception {
+		ObjectMapper json = new ObjectMapper();
+		MockHttpServletRequest requisicaoAtual = new MockHttpServletRequest();
+		requisicaoAtual.setRemoteAddr(IP);
+
+		AuthorizationService authorizationService = new AuthorizationService();
+		ReflectionTestUtils.setField(authorizationService, "request", requisicaoAtual);
+		ReflectionTestUtils.setField(authorizationService, "loginAttemptService", loginAttemptService);
+		ReflectionTestUtils.setField(authorizationService, "userRepository", mock(UserRepository.class));
+		ReflectionTestUtils.setField(authorizationService, "rastreador", new Rastreador(new ExportadorOtlp("", "teste", 16), 0.0, 500));
+		AuthenticationManager authenticationManager = new ProviderManager(new DaoAuthenticationProvider(authorizationService));
+		GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+		// aquecimento do JIT nos dois caminhos
+		caminhoPorExcecao(json, authenticationManager, handler, REQUISICOES);
+		caminhoPeloFiltro(REQUISICOES);
+
+		long excecao = caminhoPorExcecao(json, authenticationManager, handler, REQUISICOES);
+		long filtroNanos = caminhoPeloFiltro(REQUISICOES);
+
+		System.out.printf("login bloqueado: %d ns pelo filtro, %d ns pelo caminho com exceções (%.1fx)%n",
+				filtroNanos / REQUISICOES, excecao / REQUISICOES, (double) excecao / filtroNanos);
+		assertTrue(filtroNanos * 2 < excecao, "filtro " + filtroNanos + " ns, exceções " + excecao + " ns");
+	}
+
+	// o que acontecia antes: corpo lido, authenticate, LockedException embrulhada, desembrulhada e formatada
+	private long caminhoPorExcecao(ObjectMapper json, AuthenticationManager authenticationManager,
+								   GlobalExceptionHandler handler, int n) throws Exception {
+		int recusas = 0;
+		long inicio = System.nanoTime();
+		for (int i = 0; i < n; i++) {
+			AuthDTO data = json.readValue(CORPO, AuthDTO.class);
+			try {
+				try {
+					authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(data.username(), data.password()));
+				} catch (AuthenticationException e) {
+					if (e instanceof LockedException || e.getCause() instanceof LockedException) {
+						throw new LockedException(e.getMessage());
+					}
+					throw e;
+				}
+			} catch (LockedException e) {
+				var resposta = handler.handleLockedException(e);
+				if (json.writeValueAsBytes(resposta.getBody()).length > 0 && resposta.getStatusCode().value() == 429) recusas++;
+			}
+		}
+		long duracao = System.nanoTime() - inicio;
+		assertEquals(n, recusas);
+		return duracao;
+	}
+
+	private long caminhoPeloFiltro(int n) throws Exception {
+		FilterChain cadeia = (requisicao, resposta) -> fail("requisição bloqueada chegou à cadeia");
+		int recusas = 0;
+		long inicio = System.nanoTime();
+		// o caminho antigo também não paga a criação dos objetos de servlet
+		MockHttpServletRequest requisicao = login(IP);
+		MockHttpServletResponse resposta = new MockHttpServletResponse();
+		for (int i = 0; i < n; i++) {
+			requisicao.removeAttribute(filtro.getClass().getName() + ".FILTERED");
+			resposta.reset();
+			filtro.doFilter(requisicao, resposta, cadeia);
+			if (resposta.getStatus() == 429) recusas++;
+		}
+		long duracao = System.nanoTime() - inicio;
+		assertEquals(n, recusas);
+		return duracao;
+	}
+}
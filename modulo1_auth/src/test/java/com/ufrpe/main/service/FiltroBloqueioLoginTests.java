@@ -0,0 +1,66 @@
+package com.ufrpe.main.service;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// login vindo de um IP bloqueado é recusado no filtro, antes do corpo ser lido e do AuthenticationManager
+class FiltroBloqueioLoginTests {
+
+	static final String IP = "203.0.113.7";
+	static final byte[] CORPO = "{\"username\":\"alvo\",\"password\":\"chute\"}".getBytes(StandardCharsets.UTF_8);
+
+	private LoginAttemptService loginAttemptService;
+	private FiltroBloqueioLogin filtro;
+
+	@BeforeEach
+	void bloquearIp() {
+		loginAttemptService = new LoginAttemptService(new BackendTentativasMemoria(3, 15));
+		for (int i = 0; i < 3; i++) {
+			loginAttemptService.loginFailed(IP);
+		}
+		filtro = new FiltroBloqueioLogin(loginAttemptService);
+	}
+
+	@Test
+	void ipBloqueadoRecebe429SemPassarPelaCadeia() throws Exception {
+		FilterChain cadeia = mock(FilterChain.class);
+		MockHttpServletResponse resposta = new MockHttpServletResponse();
+
+		filtro.doFilter(login(IP), resposta, cadeia);
+
+		verifyNoInteractions(cadeia);
+		assertEquals(429, resposta.getStatus());
+		long retryAfter = Long.parseLong(resposta.getHeader("Retry-After"));
+		assertTrue(retryAfter > 14 * 60 && retryAfter <= 15 * 60, "Retry-After " + retryAfter);
+		assertTrue(resposta.getContentAsString().startsWith("{\"message\":\"Muitas tentativas de login."));
+	}
+
+	@Test
+	void ipLivreEOutrasRotasSeguemNormalmente() throws Exception {
+		FilterChain cadeia = mock(FilterChain.class);
+		filtro.doFilter(login("198.51.100.1"), new MockHttpServletResponse(), cadeia);
+
+		MockHttpServletRequest registro = login(IP);
+		registro.setServletPath("/auth/register");
+		filtro.doFilter(registro, new MockHttpServletResponse(), cadeia);
+
+		verify(cadeia, times(2)).doFilter(any(), any());
+	}
+
+	static MockHttpServletRequest login(String ip) {
+		MockHttpServletRequest requisicao = new MockHttpServletRequest("POST", "/auth/login");
+		requisicao.setServletPath("/auth/login");
+		requisicao.setRemoteAddr(ip);
+		requisicao.setContentType("application/json");
+		requisicao.setContent(CORPO);
+		return requisicao;
+	}
+}
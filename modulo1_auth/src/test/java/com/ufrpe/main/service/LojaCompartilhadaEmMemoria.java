@@ -0,0 +1,50 @@
+package com.ufrpe.main.service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+// substituto em processo da loja compartilhada: várias instâncias do backend apontando para ela simulam réplicas
+class LojaCompartilhadaEmMemoria implements LojaCompartilhada {
+
+	private record Entrada(long valor, long expiraEm) {
+	}
+
+	private final ConcurrentHashMap<String, Entrada> entradas = new ConcurrentHashMap<>();
+	int operacoes;
+
+	@Override
+	public synchronized long incrementar(String chave, long delta, Duration ttl) {
+		operacoes++;
+		long agora = System.currentTimeMillis();
+		Entrada nova = entradas.merge(chave, new Entrada(delta, agora + ttl.toMillis()),
+				(antiga, inc) -> antiga.expiraEm() <= agora ? inc : new Entrada(antiga.valor() + inc.valor(), inc.expiraEm()));
+		return nova.valor();
+	}
+
+	@Override
+	public synchronized void definir(String chave, long valor, Duration ttl) {
+		operacoes++;
+		entradas.put(chave, new Entrada(valor, System.currentTimeMillis() + ttl.toMillis()));
+	}
+
+	@Override
+	public synchronized void remover(Collection<String> chaves) {
+		if (chaves.isEmpty()) return;
+		operacoes++;
+		chaves.forEach(entradas::remove);
+	}
+
+	@Override
+	public synchronized Long buscar(String chave) {
+		operacoes++;
+		Entrada entrada = entradas.get(chave);
+		return entrada == null || entrada.expiraEm() <= System.currentTimeMillis() ? null : entrada.valor();
+	}
+
+	@Override
+	public synchronized void removerExpirados() {
+		long agora = System.currentTimeMillis();
+		entradas.values().removeIf(entrada -> entrada.expiraEm() <= agora);
+	}
+}
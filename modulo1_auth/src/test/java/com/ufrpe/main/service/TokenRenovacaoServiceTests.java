@@ -0,0 +1,118 @@
+package com.ufrpe.main.service;
+
+import com.ufrpe.main.exceptions.InvalidCredentialsException;
+import com.ufrpe.main.models.TokenRenovacao;
+import com.ufrpe.main.models.UserRole;
+import com.ufrpe.main.models.Usuario;
+import com.ufrpe.main.repository.TokenRenovacaoRepository;
+import com.ufrpe.main.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// as consultas de marcarUsado e revogarFamilia rodam de verdade, num H2 em memória no lugar do Postgres
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class TokenRenovacaoServiceTests {
+
+	@Autowired
+	private TokenRenovacaoRepository tokenRenovacaoRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private TokenRenovacaoService service;
+	private Usuario usuario;
+
+	@BeforeEach
+	void criarService() {
+		service = new TokenRenovacaoService();
+		ReflectionTestUtils.setField(service, "tokenRenovacaoRepository", tokenRenovacaoRepository);
+		ReflectionTestUtils.setField(service, "validadeDias", 14L);
+		ReflectionTestUtils.setField(service, "validadeMaximaDias", 60L);
+		usuario = userRepository.save(new Usuario("ana", "hash", UserRole.FREE));
+	}
+
+	@Test
+	void renovacaoTrocaOTokenDentroDaMesmaFamilia() throws Exception {
+		String token = service.emitir(usuario);
+		TokenRenovacaoService.Renovacao renovacao = service.renovar(token);
+
+		assertEquals(usuario.getId(), renovacao.usuario().getId());
+		assertNotEquals(token, renovacao.refreshToken());
+		assertEquals(registro(token).getFamilia(), registro(renovacao.refreshToken()).getFamilia());
+	}
+
+	@Test
+	void reusoDeTokenJaTrocadoRevogaAFamiliaInteira() throws Exception {
+		String token = service.emitir(usuario);
+		String novo = service.renovar(token).refreshToken();
+		String outraSessao = service.emitir(usuario);
+
+		assertThrows(InvalidCredentialsException.class, () -> service.renovar(token));
+
+		// o token legítimo da família também deixa de valer; a outra sessão não é afetada
+		assertThrows(InvalidCredentialsException.class, () -> service.renovar(novo));
+		assertEquals(1, tokenRenovacaoRepository.count());
+		assertNotNull(service.renovar(outraSessao).refreshToken());
+	}
+
+	@Test
+	void tokenExpiradoEhRecusado() throws Exception {
+		String token = service.emitir(usuario);
+		TokenRenovacao registro = registro(token);
+		registro.setExpiraEm(Instant.now().minusSeconds(1));
+		tokenRenovacaoRepository.saveAndFlush(registro);
+
+		InvalidCredentialsException erro = assertThrows(InvalidCredentialsException.class, () -> service.renovar(token));
+		assertEquals("Refresh token expirado", erro.getMessage());
+	}
+
+	@Test
+	void novaTentativaComTokenExpiradoNaoRevogaAFamilia() throws Exception {
+		String token = service.renovar(service.emitir(usuario)).refreshToken();
+		TokenRenovacao registro = registro(token);
+		registro.setExpiraEm(Instant.now().minusSeconds(1));
+		tokenRenovacaoRepository.saveAndFlush(registro);
+
+		// o cliente repete a renovação, por exemplo depois de um timeout de rede
+		for (int i = 0; i < 2; i++) {
+			InvalidCredentialsException erro = assertThrows(InvalidCredentialsException.class, () -> service.renovar(token));
+			assertEquals("Refresh token expirado", erro.getMessage());
+		}
+		// os dois tokens da família continuam gravados: nada foi revogado
+		assertEquals(2, tokenRenovacaoRepository.count());
+	}
+
+	@Test
+	void expiracaoDeslizanteNaoPassaDoLimiteDaFamilia() throws Exception {
+		Instant antes = Instant.now();
+		String longa = service.emitir(usuario);
+		TokenRenovacao renovadaLonga = registro(service.renovar(longa).refreshToken());
+		// longe do limite: a renovação ganha os 14 dias inteiros
+		assertFalse(renovadaLonga.getExpiraEm().isBefore(antes.plus(Duration.ofDays(14))));
+		assertTrue(renovadaLonga.getExpiraEm().isBefore(renovadaLonga.getFamiliaExpiraEm()));
+
+		ReflectionTestUtils.setField(service, "validadeMaximaDias", 10L);
+		String curta = service.emitir(usuario);
+		Instant limite = registro(curta).getFamiliaExpiraEm();
+		TokenRenovacao renovadaCurta = registro(service.renovar(curta).refreshToken());
+		// perto do limite: a renovação para no fim da família, não em agora + 14 dias
+		assertEquals(limite, renovadaCurta.getFamiliaExpiraEm());
+		assertEquals(limite, renovadaCurta.getExpiraEm());
+	}
+
+	private TokenRenovacao registro(String token) throws Exception {
+		byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+		return tokenRenovacaoRepository.buscarPorHash(hash).orElseThrow();
+	}
+
+}
@@ -1,10 +1,16 @@
 package ufrpe.spotify.assinatura.Modulo.Assinatura.Controlador;
 
 import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços.AssinaturaIndisponivelException;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços.ContadoresAssinatura;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços.FilaUpgradeDuravel;
 import ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços.ServiçoAssinatura;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços.StatusPremium;
 
+import java.net.URI;
 import java.util.Map;
 import java.util.UUID;
 
@@ -16,20 +22,28 @@ import java.util.UUID;
 @RequestMapping("/api/assinatura")
 public class AssinaturaController {
     private final ServiçoAssinatura serviçoAssinatura;
+    private final ContadoresAssinatura contadoresAssinatura;
+    private final FilaUpgradeDuravel filaUpgrade;
 
-    public AssinaturaController(ServiçoAssinatura serviçoAssinatura){
+    public AssinaturaController(ServiçoAssinatura serviçoAssinatura, ContadoresAssinatura contadoresAssinatura,
+                                FilaUpgradeDuravel filaUpgrade){
         this.serviçoAssinatura = serviçoAssinatura;
+        this.contadoresAssinatura = contadoresAssinatura;
+        this.filaUpgrade = filaUpgrade;
     }
 
 
     @CrossOrigin(origins = "*")
     @GetMapping("/status/{userID}")
     public ResponseEntity<?> verificarStatus(@PathVariable int userID){
-        boolean ehPremium = serviçoAssinatura.ehPremium(userID);
+        StatusPremium status = serviçoAssinatura.consultarPremium(userID);
+        boolean ehPremium = status.premium();
 
+        // stale = true quando o banco não respondeu e a resposta é a última conhecida
         return ResponseEntity.ok(Map.of(
                 "userId", userID,
                 "premium", ehPremium,
+                "stale", status.desatualizado(),
                 "message", ehPremium ? "Aproveite músicas ilimitadas!" : "Veja uma propaganda para continuar."
         ));
 
@@ -37,9 +51,22 @@ public class AssinaturaController {
     }
 
 
+    // assincrono=true: o pedido vai para o log local e é aplicado em lote; responde 202 com o log e o número da operação
     @CrossOrigin(origins = "*")
     @PostMapping("/upgrade/{userID}")
-    public ResponseEntity<?> upgrade(@PathVariable int userID){
+    public ResponseEntity<?> upgrade(@PathVariable int userID, @RequestParam(defaultValue = "false") boolean assincrono){
+        if (assincrono) {
+            long operacao = filaUpgrade.enfileirar(userID);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/assinatura/operacoes/" + filaUpgrade.idLog() + "/" + operacao))
+                    .body(Map.of(
+                            "userId", userID,
+                            "log", filaUpgrade.idLog(),
+                            "operacao", operacao,
+                            "estado", FilaUpgradeDuravel.Estado.PENDENTE,
+                            "message", "Upgrade recebido, será aplicado em instantes"
+                    ));
+        }
         serviçoAssinatura.upgradePremium(userID);
         return ResponseEntity.ok(Map.of(
                 "userId", userID,
@@ -47,4 +74,36 @@ public class AssinaturaController {
                 "message", "Conta atualizada para Premium"
         ));
     }
+
+    // só a réplica dona do log sabe o estado; o balanceador roteia pelo segmento {log} do caminho. Numa réplica
+    // errada responde 421 (Misdirected Request), e não 404: a operação pode existir, só não está aqui
+    @Operation(summary = "Estado de um upgrade assíncrono")
+    @CrossOrigin(origins = "*")
+    @GetMapping("/operacoes/{log}/{operacao}")
+    public ResponseEntity<?> operacao(@PathVariable String log, @PathVariable long operacao){
+        if (!log.equals(filaUpgrade.idLog())) {
+            return ResponseEntity.status(421).body(Map.of("log", log, "operacao", operacao,
+                    "message", "Operação registrada em outra réplica"));
+        }
+        FilaUpgradeDuravel.Estado estado = filaUpgrade.estado(operacao);
+        if (estado == FilaUpgradeDuravel.Estado.DESCONHECIDA) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("log", log, "operacao", operacao, "message", "Operação não encontrada"));
+        }
+        return ResponseEntity.ok(Map.of("log", log, "operacao", operacao, "estado", estado));
+    }
+
+    // lê só os contadores agregados: o custo não cresce com o número de assinantes
+    @Operation(summary = "Estatísticas de assinaturas por plano, status e dia de expiração")
+    @CrossOrigin(origins = "*")
+    @GetMapping("/estatisticas")
+    public ResponseEntity<ContadoresAssinatura.Estatisticas> estatisticas(){
+        return ResponseEntity.ok(contadoresAssinatura.estatisticas());
+    }
+
+    @ExceptionHandler(AssinaturaIndisponivelException.class)
+    public ResponseEntity<?> assinaturaIndisponivel(AssinaturaIndisponivelException ex){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .body(Map.of("message", ex.getMessage()));
+    }
 }
@@ -0,0 +1,65 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Controlador;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços.LimitadorConcorrencia;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços.LimitadorConcorrencia.Prioridade;
+
+import java.io.IOException;
+
+// fica na frente de verificarStatus e upgrade, devolvendo 503 imediato quando o limite adaptativo estoura
+@Component
+public class FiltroConcorrencia extends OncePerRequestFilter {
+
+    private static final String RESPOSTA_SOBRECARGA =
+            "{\"message\": \"Serviço sobrecarregado, tente novamente em instantes\"}";
+
+    private final LimitadorConcorrencia limitador;
+    private final String tokenInterno;
+    private final String retryAfter;
+
+    public FiltroConcorrencia(LimitadorConcorrencia limitador,
+                              @Value("${assinatura.limitador.token-interno:}") String tokenInterno,
+                              @Value("${assinatura.limitador.retry-after-segundos:1}") int retryAfterSegundos) {
+        this.limitador = limitador;
+        this.tokenInterno = tokenInterno;
+        this.retryAfter = String.valueOf(retryAfterSegundos);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !(uri.startsWith("/api/assinatura/status/") || uri.startsWith("/api/assinatura/upgrade/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Prioridade prioridade = prioridade(request);
+        if (!limitador.tentarAdquirir(prioridade)) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE); // 503
+            response.setHeader("Retry-After", retryAfter);
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write(RESPOSTA_SOBRECARGA);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limitador.liberar();
+        }
+    }
+
+    // chamadas internas (com o token configurado) são as últimas a serem descartadas, depois escritas, depois leituras
+    private Prioridade prioridade(HttpServletRequest request) {
+        if (!tokenInterno.isEmpty() && tokenInterno.equals(request.getHeader("X-Servico-Interno"))) {
+            return Prioridade.INTERNA;
+        }
+        return "GET".equals(request.getMethod()) ? Prioridade.LEITURA : Prioridade.ESCRITA;
+    }
+}
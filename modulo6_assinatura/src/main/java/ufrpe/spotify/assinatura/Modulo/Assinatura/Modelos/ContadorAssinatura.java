@@ -0,0 +1,18 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Modelos;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// contador agregado mantido junto com as escritas em Assinatura; a chave é "dimensão:valor" (ex.: plano:PREMIUM)
+@Entity
+@Table(name = "contador_assinatura")
+@Data
+public class ContadorAssinatura {
+
+    @Id
+    @Column(length = 40)
+    private String chave;
+
+    @Column(nullable = false)
+    private long total;
+}
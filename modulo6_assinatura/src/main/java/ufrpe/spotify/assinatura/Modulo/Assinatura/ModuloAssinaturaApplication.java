@@ -2,8 +2,10 @@ package ufrpe.spotify.assinatura.Modulo.Assinatura;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ModuloAssinaturaApplication {
 
 	public static void main(String[] args) {
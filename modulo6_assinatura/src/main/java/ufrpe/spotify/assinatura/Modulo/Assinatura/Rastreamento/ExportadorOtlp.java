@@ -0,0 +1,140 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Rastreamento;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// envia os traços mantidos para um coletor OTLP/HTTP (JSON) em lotes, fora da thread da requisição
+@Component
+public class ExportadorOtlp {
+    private static final int TAMANHO_LOTE = 64;
+
+    private final URI endpoint;
+    private final String servico;
+    private final BlockingQueue<Traco> fila;
+    private final HttpClient cliente;
+    private final Thread envio;
+    private volatile boolean ativo = true;
+
+    public ExportadorOtlp(@Value("${rastreamento.otlp.endpoint:}") String endpoint,
+                          @Value("${rastreamento.servico:${spring.application.name}}") String servico,
+                          @Value("${rastreamento.otlp.fila:2048}") int capacidadeFila) {
+        this.endpoint = endpoint.isBlank() ? null : URI.create(endpoint);
+        this.servico = servico;
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        this.cliente = this.endpoint == null ? null : HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+        this.envio = new Thread(this::enviarLotes, "exportador-otlp");
+        this.envio.setDaemon(true);
+        if (this.endpoint != null) {
+            envio.start();
+        }
+    }
+
+    // nunca bloqueia a requisição: sem coletor configurado ou com a fila cheia o traço é descartado
+    void enviar(Traco traco) {
+        if (endpoint != null) {
+            fila.offer(traco);
+        }
+    }
+
+    private void enviarLotes() {
+        List<Traco> lote = new ArrayList<>(TAMANHO_LOTE);
+        while (ativo || !fila.isEmpty()) {
+            try {
+                Traco primeiro = fila.poll(1, TimeUnit.SECONDS);
+                if (primeiro == null) continue;
+                lote.add(primeiro);
+                fila.drainTo(lote, TAMANHO_LOTE - 1);
+
+                HttpRequest requisicao = HttpRequest.newBuilder(endpoint)
+                        .timeout(Duration.ofSeconds(5))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(paraJson(lote)))
+                        .build();
+                cliente.send(requisicao, HttpResponse.BodyHandlers.discarding());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception ex) {
+                System.err.println("Falha ao exportar traços: " + ex.getMessage());
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    String paraJson(List<Traco> tracos) {
+        StringBuilder json = new StringBuilder(512 * tracos.size());
+        json.append("{\"resourceSpans\":[{\"resource\":{\"attributes\":[");
+        atributo(json, "service.name", servico);
+        json.append("]},\"scopeSpans\":[{\"scope\":{\"name\":\"").append(Rastreador.class.getName()).append("\"},\"spans\":[");
+
+        boolean primeiro = true;
+        for (Traco traco : tracos) {
+            String traceId = Rastreador.hex(traco.traceIdAlto) + Rastreador.hex(traco.traceIdBaixo);
+            for (Span span : traco.spans) {
+                if (!primeiro) json.append(',');
+                primeiro = false;
+                json.append("{\"traceId\":\"").append(traceId)
+                        .append("\",\"spanId\":\"").append(Rastreador.hex(span.spanId)).append('"');
+                if (span.parentId != 0) {
+                    json.append(",\"parentSpanId\":\"").append(Rastreador.hex(span.parentId)).append('"');
+                }
+                json.append(",\"name\":\"").append(escapar(span.nome))
+                        .append("\",\"kind\":").append(span.tipo)
+                        .append(",\"startTimeUnixNano\":\"").append(traco.epochNanos(span.inicioNanos))
+                        .append("\",\"endTimeUnixNano\":\"").append(traco.epochNanos(span.fimNanos))
+                        .append("\",\"attributes\":[");
+                if (span.atributos != null) {
+                    for (int i = 0; i < span.atributos.size(); i += 2) {
+                        if (i > 0) json.append(',');
+                        atributo(json, span.atributos.get(i), span.atributos.get(i + 1));
+                    }
+                }
+                // 2 = STATUS_CODE_ERROR, 0 = STATUS_CODE_UNSET
+                json.append("],\"status\":{\"code\":").append(span.erro ? 2 : 0).append("}}");
+            }
+        }
+        json.append("]}]}]}");
+        return json.toString();
+    }
+
+    private static void atributo(StringBuilder json, String chave, String valor) {
+        json.append("{\"key\":\"").append(escapar(chave)).append("\",\"value\":{\"stringValue\":\"")
+                .append(escapar(valor)).append("\"}}");
+    }
+
+    private static String escapar(String texto) {
+        StringBuilder escapado = new StringBuilder(texto.length());
+        for (char c : texto.toCharArray()) {
+            switch (c) {
+                case '"' -> escapado.append("\\\"");
+                case '\\' -> escapado.append("\\\\");
+                default -> {
+                    if (c < 0x20) escapado.append(String.format("\\u%04x", (int) c));
+                    else escapado.append(c);
+                }
+            }
+        }
+        return escapado.toString();
+    }
+
+    @PreDestroy
+    void encerrar() throws InterruptedException {
+        ativo = false;
+        if (endpoint != null) {
+            envio.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+}
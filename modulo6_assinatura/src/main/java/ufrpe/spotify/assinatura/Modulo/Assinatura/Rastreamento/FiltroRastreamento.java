@@ -0,0 +1,44 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Rastreamento;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// primeiro filtro da cadeia: o span raiz cobre toda a cadeia de filtros, inclusive o limitador de concorrência
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class FiltroRastreamento extends OncePerRequestFilter {
+
+    private final Rastreador rastreador;
+
+    public FiltroRastreamento(Rastreador rastreador) {
+        this.rastreador = rastreador;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Span raiz = rastreador.iniciarRaiz(request.getHeader("traceparent"), request.getMethod() + " " + request.getRequestURI());
+        // na resposta o cabeçalho W3C é traceresponse; traceparent só vale no sentido do pedido
+        response.setHeader("traceresponse", rastreador.traceparent(raiz));
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException ex) {
+            raiz.marcarErro();
+            throw ex;
+        } finally {
+            int status = response.getStatus();
+            raiz.atributo("http.response.status_code", String.valueOf(status));
+            if (status >= 500) {
+                raiz.marcarErro();
+            }
+            rastreador.encerrarRaiz(raiz);
+        }
+    }
+}
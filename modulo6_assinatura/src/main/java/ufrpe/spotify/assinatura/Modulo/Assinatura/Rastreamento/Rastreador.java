@@ -0,0 +1,127 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Rastreamento;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Rastreamento com propagação W3C (traceparent) e amostragem na origem e no fim da requisição.
+ * Todos os spans da requisição são mantidos em memória até a raiz terminar; então o traço é exportado se
+ * foi amostrado na origem (flag do traceparent recebido ou sorteio pela taxa), se falhou ou se passou do limiar de lentidão.
+ * Fora de uma requisição rastreada, iniciar() devolve null e não aloca nada.
+ * O pacote de rastreamento é o mesmo em modulo1_auth: cada módulo é construído sozinho (build ./modulo no
+ * docker-compose), então não há onde colocar uma biblioteca comum; uma mudança aqui precisa ir para a outra cópia.
+ */
+@Component
+public class Rastreador {
+
+    private final ThreadLocal<Traco> atual = new ThreadLocal<>();
+    private final ExportadorOtlp exportador;
+    private final double taxaAmostragem;
+    private final long limiarLentoNanos;
+
+    public Rastreador(ExportadorOtlp exportador,
+                      @Value("${rastreamento.amostragem.taxa:0.01}") double taxaAmostragem,
+                      @Value("${rastreamento.limiar-lento-ms:500}") long limiarLentoMs) {
+        this.exportador = exportador;
+        this.taxaAmostragem = taxaAmostragem;
+        this.limiarLentoNanos = TimeUnit.MILLISECONDS.toNanos(limiarLentoMs);
+    }
+
+    // abre o traço da requisição, continuando o traceparent recebido quando ele é válido
+    public Span iniciarRaiz(String traceparent, String nome) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        Traco traco = null;
+        long parentId = 0;
+
+        // formato: 00-<trace-id 32 hex>-<parent-id 16 hex>-<flags 2 hex>
+        if (traceparent != null && traceparent.length() == 55 && traceparent.startsWith("00-")) {
+            try {
+                long alto = Long.parseUnsignedLong(traceparent, 3, 19, 16);
+                long baixo = Long.parseUnsignedLong(traceparent, 19, 35, 16);
+                parentId = Long.parseUnsignedLong(traceparent, 36, 52, 16);
+                boolean amostrado = (Integer.parseInt(traceparent, 53, 55, 16) & 1) == 1;
+                if ((alto | baixo) != 0 && parentId != 0) {
+                    traco = new Traco(alto, baixo, amostrado);
+                }
+            } catch (NumberFormatException ex) {
+                // traceparent inválido: começa um traço novo
+            }
+        }
+        if (traco == null) {
+            parentId = 0;
+            traco = new Traco(aleatorio.nextLong(), aleatorio.nextLong() | 1, aleatorio.nextDouble() < taxaAmostragem);
+        }
+
+        atual.set(traco);
+        Span raiz = new Span(aleatorio.nextLong() | 1, parentId, nome, Span.SERVIDOR, traco.inicioNanos);
+        traco.spans.add(raiz);
+        traco.pilha.push(raiz);
+        return raiz;
+    }
+
+    // fecha a raiz e decide se o traço é exportado
+    public void encerrarRaiz(Span raiz) {
+        Traco traco = atual.get();
+        atual.remove();
+        if (traco == null) return;
+
+        raiz.fimNanos = System.nanoTime();
+        boolean lento = raiz.fimNanos - raiz.inicioNanos >= limiarLentoNanos;
+        boolean falhou = false;
+        for (Span span : traco.spans) {
+            falhou |= span.erro;
+        }
+        if (traco.amostradoNaOrigem || lento || falhou) {
+            exportador.enviar(traco);
+        }
+    }
+
+    public Span iniciar(String nome, int tipo) {
+        Traco traco = atual.get();
+        if (traco == null) return null;
+
+        Span pai = traco.pilha.peek();
+        Span span = new Span(ThreadLocalRandom.current().nextLong() | 1, pai == null ? 0 : pai.spanId, nome, tipo, System.nanoTime());
+        traco.spans.add(span);
+        traco.pilha.push(span);
+        return span;
+    }
+
+    public void encerrar(Span span) {
+        if (span == null) return;
+        span.fimNanos = System.nanoTime();
+        Traco traco = atual.get();
+        if (traco != null && traco.pilha.peek() == span) {
+            traco.pilha.pop();
+        }
+    }
+
+    public <T> T emSpan(String nome, int tipo, Supplier<T> acao) {
+        Span span = iniciar(nome, tipo);
+        try {
+            return acao.get();
+        } catch (RuntimeException ex) {
+            if (span != null) span.marcarErro();
+            throw ex;
+        } finally {
+            encerrar(span);
+        }
+    }
+
+    // traceparent a devolver/propagar, apontando para o span informado
+    public String traceparent(Span span) {
+        Traco traco = atual.get();
+        if (traco == null || span == null) return null;
+        return "00-" + hex(traco.traceIdAlto) + hex(traco.traceIdBaixo) + "-" + hex(span.spanId)
+                + (traco.amostradoNaOrigem ? "-01" : "-00");
+    }
+
+    static String hex(long valor) {
+        String hex = Long.toHexString(valor);
+        return hex.length() == 16 ? hex : "0".repeat(16 - hex.length()) + hex;
+    }
+}
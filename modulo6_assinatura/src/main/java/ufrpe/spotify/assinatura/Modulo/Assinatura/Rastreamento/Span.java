@@ -0,0 +1,40 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Rastreamento;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// trecho de um traço; ids guardados como long e só convertidos para hexadecimal na exportação
+public final class Span {
+    public static final int INTERNO = 1;
+    public static final int SERVIDOR = 2;
+    public static final int CLIENTE = 3;
+
+    final long spanId;
+    final long parentId;
+    final String nome;
+    final int tipo;
+    final long inicioNanos;
+    long fimNanos;
+    boolean erro;
+    List<String> atributos;
+
+    Span(long spanId, long parentId, String nome, int tipo, long inicioNanos) {
+        this.spanId = spanId;
+        this.parentId = parentId;
+        this.nome = nome;
+        this.tipo = tipo;
+        this.inicioNanos = inicioNanos;
+    }
+
+    public void atributo(String chave, String valor) {
+        if (atributos == null) {
+            atributos = new ArrayList<>(4);
+        }
+        atributos.add(chave);
+        atributos.add(valor);
+    }
+
+    public void marcarErro() {
+        erro = true;
+    }
+}
@@ -0,0 +1,65 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Repositorios;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Modelos.Assinatura;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+// consultas em lote feitas direto no JDBC: um único parâmetro array, o mesmo plano para qualquer tamanho de lote
+@Repository
+public class AssinaturaLoteRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AssinaturaLoteRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Assinatura> buscarPorUsuarios(Collection<Integer> usuarios) {
+        return jdbcTemplate.query(
+                "SELECT id, user_id, plano, status, fim_assinatura FROM assinatura WHERE user_id = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("integer", usuarios.toArray())),
+                (rs, linha) -> paraAssinatura(rs));
+    }
+
+    // trava as linhas existentes na ordem de user_id, a mesma para qualquer lote concorrente
+    public List<Assinatura> buscarPorUsuariosParaAtualizar(Collection<Integer> usuarios) {
+        return jdbcTemplate.query(
+                "SELECT id, user_id, plano, status, fim_assinatura FROM assinatura WHERE user_id = ANY(?) ORDER BY user_id FOR UPDATE",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("integer", usuarios.toArray())),
+                (rs, linha) -> paraAssinatura(rs));
+    }
+
+    // o ON CONFLICT cobre um usuário novo criado por um upgrade síncrono no meio do lote;
+    // nesse caso raro os contadores ficam com um a mais até a próxima reconciliação
+    public void gravar(List<Assinatura> assinaturas) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO assinatura (user_id, plano, status, fim_assinatura) VALUES (?, ?, ?, ?) " +
+                        "ON CONFLICT (user_id) DO UPDATE SET plano = EXCLUDED.plano, status = EXCLUDED.status, " +
+                        "fim_assinatura = EXCLUDED.fim_assinatura",
+                assinaturas, assinaturas.size(), (ps, assinatura) -> {
+                    ps.setInt(1, assinatura.getUserId());
+                    ps.setString(2, assinatura.getPlano() == null ? null : assinatura.getPlano().name());
+                    ps.setString(3, assinatura.getStatus() == null ? null : assinatura.getStatus().name());
+                    ps.setTimestamp(4, assinatura.getFimAssinatura() == null ? null : Timestamp.valueOf(assinatura.getFimAssinatura()));
+                });
+    }
+
+    static Assinatura paraAssinatura(ResultSet rs) throws SQLException {
+        Assinatura assinatura = new Assinatura();
+        assinatura.setId(rs.getInt("id"));
+        assinatura.setUserId(rs.getInt("user_id"));
+        String plano = rs.getString("plano");
+        assinatura.setPlano(plano == null ? null : Assinatura.PlanType.valueOf(plano));
+        String status = rs.getString("status");
+        assinatura.setStatus(status == null ? null : Assinatura.SubscriptionStatus.valueOf(status));
+        Timestamp fim = rs.getTimestamp("fim_assinatura");
+        assinatura.setFimAssinatura(fim == null ? null : fim.toLocalDateTime());
+        return assinatura;
+    }
+}
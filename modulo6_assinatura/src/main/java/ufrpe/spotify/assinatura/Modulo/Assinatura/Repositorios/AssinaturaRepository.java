@@ -1,6 +1,10 @@
 package ufrpe.spotify.assinatura.Modulo.Assinatura.Repositorios;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ufrpe.spotify.assinatura.Modulo.Assinatura.Modelos.Assinatura;
 
 import java.util.Optional;
@@ -8,4 +12,9 @@ import java.util.UUID;
 
 public interface AssinaturaRepository extends JpaRepository<Assinatura, Integer> {
     Optional<Assinatura> findByUserId(int userId);
+
+    // SELECT ... FOR UPDATE: o estado antigo lido é o que os contadores vão descontar
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Assinatura a where a.userId = :userId")
+    Optional<Assinatura> buscarParaAtualizar(@Param("userId") int userId);
 }
@@ -0,0 +1,86 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Repositorios;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// escritas dos contadores direto no JDBC: o incremento é um upsert atômico, sem ler a linha antes
+@Repository
+public class ContadorAssinaturaRepository {
+
+    // contadores e contagem vistos no mesmo instante
+    public record Fotografia(Map<String, Long> contadores, Map<String, Long> recalculados) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ContadorAssinaturaRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void incrementar(Map<String, Long> deltas) {
+        if (deltas.isEmpty()) return;
+        List<Object[]> linhas = new ArrayList<>(deltas.size());
+        // ordem fixa das chaves: duas transações nunca travam os mesmos contadores em ordens diferentes
+        deltas.entrySet().stream().sorted(Map.Entry.comparingByKey())
+                .forEach(delta -> linhas.add(new Object[]{delta.getKey(), delta.getValue()}));
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO contador_assinatura (chave, total) VALUES (?, ?) " +
+                        "ON CONFLICT (chave) DO UPDATE SET total = contador_assinatura.total + EXCLUDED.total",
+                linhas);
+    }
+
+    public Map<String, Long> listar() {
+        Map<String, Long> contadores = new HashMap<>();
+        jdbcTemplate.query("SELECT chave, total FROM contador_assinatura",
+                rs -> { contadores.put(rs.getString("chave"), rs.getLong("total")); });
+        return contadores;
+    }
+
+    // trava consultiva do Postgres presa à transação atual: liberada sozinha no commit ou rollback, inclusive se a
+    // réplica cair. false quando outra réplica já está com ela
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean travarReconciliacao() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(hashtext('contador_assinatura'))", Boolean.class));
+    }
+
+    // contadores e contagem da tabela de assinaturas numa única consulta, que no Postgres lê um único snapshot
+    // sem travar as escritas. Como cada escrita em assinatura incrementa os contadores na mesma transação, o snapshot
+    // vê as duas partes ou nenhuma. Os dias de expiração anteriores a hoje não são contados
+    public Fotografia fotografar(LocalDate hoje) {
+        Map<String, Long> contadores = new HashMap<>();
+        Map<String, Long> recalculados = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT false AS recalculado, chave, total FROM contador_assinatura " +
+                        "UNION ALL SELECT true, 'plano:' || plano, count(*) FROM assinatura WHERE plano IS NOT NULL GROUP BY plano " +
+                        "UNION ALL SELECT true, 'status:' || status, count(*) FROM assinatura WHERE status IS NOT NULL GROUP BY status " +
+                        "UNION ALL SELECT true, 'expira:' || COALESCE(to_char(fim_assinatura, 'YYYY-MM-DD'), 'sem-fim'), count(*) " +
+                        "FROM assinatura WHERE plano = 'PREMIUM' AND status = 'ATIVO' " +
+                        "AND (fim_assinatura IS NULL OR fim_assinatura >= ?) GROUP BY 2",
+                rs -> {
+                    (rs.getBoolean("recalculado") ? recalculados : contadores).put(rs.getString("chave"), rs.getLong("total"));
+                },
+                hoje.atStartOfDay());
+        return new Fotografia(contadores, recalculados);
+    }
+
+    // dias que já passaram não entram nas estatísticas; uma escrita posterior numa assinatura vencida pode recriar
+    // a linha (negativa), que sai de novo na próxima reconciliação. 'expira:sem-fim' fica depois das datas
+    public void removerExpiracoesAntesDe(LocalDate hoje) {
+        jdbcTemplate.update("DELETE FROM contador_assinatura WHERE chave LIKE 'expira:%' AND chave < ?",
+                "expira:" + hoje);
+    }
+
+    // um incremento concorrente que tira a linha do zero faz o DELETE reavaliar o WHERE e desistir dela
+    public void removerZerados() {
+        jdbcTemplate.update("DELETE FROM contador_assinatura WHERE total = 0");
+    }
+}
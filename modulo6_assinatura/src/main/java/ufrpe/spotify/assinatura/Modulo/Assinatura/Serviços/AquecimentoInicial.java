@@ -0,0 +1,102 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Repositorios.AssinaturaLoteRepository;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Repositorios.AssinaturaRepository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aquece JIT, consultas do Hibernate e do JDBC e o pool do Hikari com dados sintéticos antes de aceitar tráfego.
+ * Os ApplicationRunner rodam antes do Spring Boot marcar a aplicação como pronta (ReadinessState.ACCEPTING_TRAFFIC),
+ * então /actuator/health/readiness só responde UP depois que o aquecimento termina.
+ * A duração de cada etapa fica na métrica aquecimento.duracao.
+ */
+@Component
+public class AquecimentoInicial implements ApplicationRunner {
+    // user_id que nunca existe: a consulta percorre o mesmo caminho sem tocar em assinaturas reais
+    private static final int USUARIO_SINTETICO = -1;
+
+    private final AssinaturaRepository assinaturaRepository;
+    private final AssinaturaLoteRepository loteRepository;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final boolean ativo;
+    private final int iteracoes;
+
+    public AquecimentoInicial(AssinaturaRepository assinaturaRepository, AssinaturaLoteRepository loteRepository,
+                              DataSource dataSource, MeterRegistry meterRegistry,
+                              @Value("${aquecimento.ativo:true}") boolean ativo,
+                              @Value("${aquecimento.iteracoes:200}") int iteracoes) {
+        this.assinaturaRepository = assinaturaRepository;
+        this.loteRepository = loteRepository;
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.ativo = ativo;
+        this.iteracoes = iteracoes;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!ativo) return;
+
+        etapa("pool", this::esperarPool);
+        etapa("hibernate", () -> {
+            for (int i = 0; i < Math.max(1, iteracoes / 10); i++) {
+                assinaturaRepository.findByUserId(USUARIO_SINTETICO);
+            }
+        });
+        // a consulta em lote do CarregadorAssinaturas, chamada direto: o disjuntor, o limitador e as respostas
+        // guardadas do ServiçoAssinatura não podem começar o tráfego real com estado vindo do aquecimento
+        etapa("lote", () -> {
+            for (int i = 0; i < Math.max(1, iteracoes / 10); i++) {
+                loteRepository.buscarPorUsuarios(List.of(USUARIO_SINTETICO));
+            }
+        });
+    }
+
+    private void etapa(String nome, Acao acao) {
+        meterRegistry.timer("aquecimento.duracao", "etapa", nome).record(() -> {
+            try {
+                acao.executar();
+            } catch (Exception ex) {
+                // uma etapa que falha não impede a subida, só fica registrada
+                System.err.println("Falha no aquecimento (" + nome + "): " + ex.getMessage());
+            }
+        });
+    }
+
+    // a primeira conexão inicia o pool e o próprio Hikari abre as demais até o minimumIdle;
+    // aqui só esperamos ele terminar, para a primeira requisição não pagar o handshake TLS
+    private void esperarPool() throws Exception {
+        try (Connection conexao = dataSource.getConnection()) {
+            // devolvida ao pool já aberta
+        }
+        if (!(dataSource instanceof HikariDataSource hikari)) return;
+        HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+        if (pool == null) return;
+
+        int minimo = hikari.getMinimumIdle();
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(hikari.getConnectionTimeout() * Math.max(1, minimo));
+        while (pool.getTotalConnections() < minimo) {
+            if (System.nanoTime() > limite) {
+                throw new IllegalStateException("pool com " + pool.getTotalConnections() + " de " + minimo + " conexões");
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Acao {
+        void executar() throws Exception;
+    }
+}
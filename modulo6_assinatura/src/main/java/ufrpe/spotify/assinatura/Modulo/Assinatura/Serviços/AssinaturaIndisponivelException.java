@@ -0,0 +1,8 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
+
+// banco indisponível e nenhuma resposta anterior guardada para o usuário
+public class AssinaturaIndisponivelException extends RuntimeException {
+    public AssinaturaIndisponivelException(String message) {
+        super(message);
+    }
+}
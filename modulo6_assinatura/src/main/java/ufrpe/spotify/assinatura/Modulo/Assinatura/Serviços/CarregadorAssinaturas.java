@@ -0,0 +1,140 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Modelos.Assinatura;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Repositorios.AssinaturaLoteRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Junta as buscas de assinatura que chegam dentro de uma janela curta (ou até o tamanho máximo do lote)
+ * e resolve todas com uma única consulta WHERE user_id = ANY(?). Cada chamador recebe o próprio future.
+ * Sob carga baixa o custo extra é no máximo a janela; sob pico, uma ida ao banco atende centenas de chamadas.
+ * No máximo consultas-simultaneas lotes ficam no banco ao mesmo tempo (por padrão, o tamanho do pool do Hikari):
+ * com todos ocupados, os pedidos esperam na fila e entram no próximo lote, em vez de virarem threads
+ * paradas à espera de uma conexão.
+ */
+@Component
+public class CarregadorAssinaturas {
+
+    private record Pedido(int usuario, CompletableFuture<Optional<Assinatura>> resposta) {
+    }
+
+    private final AssinaturaLoteRepository loteRepository;
+    private final LimitadorConcorrencia limitador;
+    private final long janelaNanos;
+    private final int tamanhoMaximo;
+    private final Semaphore lotesEmVoo;
+
+    private final LinkedBlockingQueue<Pedido> fila = new LinkedBlockingQueue<>();
+    private final ExecutorService consultas = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread despachante;
+    private volatile boolean ativo = true;
+
+    public CarregadorAssinaturas(AssinaturaLoteRepository loteRepository, LimitadorConcorrencia limitador,
+                                 @Value("${assinatura.lote.janela-ms:2}") long janelaMs,
+                                 @Value("${assinatura.lote.tamanho-maximo:128}") int tamanhoMaximo,
+                                 @Value("${assinatura.lote.consultas-simultaneas:${spring.datasource.hikari.maximum-pool-size:10}}") int consultasSimultaneas) {
+        this.loteRepository = loteRepository;
+        this.limitador = limitador;
+        this.janelaNanos = TimeUnit.MILLISECONDS.toNanos(janelaMs);
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.lotesEmVoo = new Semaphore(consultasSimultaneas);
+        this.despachante = new Thread(this::despachar, "carregador-assinaturas");
+        this.despachante.setDaemon(true);
+        this.despachante.start();
+    }
+
+    public CompletableFuture<Optional<Assinatura>> carregar(int usuario) {
+        Pedido pedido = new Pedido(usuario, new CompletableFuture<>());
+        fila.add(pedido);
+        return pedido.resposta();
+    }
+
+    private void despachar() {
+        while (ativo) {
+            try {
+                Pedido primeiro = fila.poll(1, TimeUnit.SECONDS);
+                if (primeiro == null) continue;
+                // enquanto espera uma vaga o lote seguinte vai se formando na fila
+                lotesEmVoo.acquire();
+
+                List<Pedido> lote = new ArrayList<>();
+                lote.add(primeiro);
+                long prazo = System.nanoTime() + janelaNanos;
+                while (lote.size() < tamanhoMaximo) {
+                    long restante = prazo - System.nanoTime();
+                    Pedido proximo;
+                    try {
+                        proximo = restante > 0 ? fila.poll(restante, TimeUnit.NANOSECONDS) : fila.poll();
+                    } catch (InterruptedException e) {
+                        lotesEmVoo.release();
+                        throw e;
+                    }
+                    if (proximo == null) break;
+                    lote.add(proximo);
+                }
+                // o despachante não espera o banco: o próximo lote já pode ser montado
+                consultas.execute(() -> resolver(lote));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void resolver(List<Pedido> todos) {
+        // quem já desistiu (timeout do chamador cancela o future) não entra na consulta
+        List<Pedido> lote = new ArrayList<>();
+        Set<Integer> usuarios = new HashSet<>();
+        for (Pedido pedido : todos) {
+            if (!pedido.resposta().isDone()) {
+                lote.add(pedido);
+                usuarios.add(pedido.usuario());
+            }
+        }
+        if (lote.isEmpty()) {
+            lotesEmVoo.release();
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            Map<Integer, Assinatura> porUsuario = new HashMap<>();
+            for (Assinatura assinatura : loteRepository.buscarPorUsuarios(usuarios)) {
+                porUsuario.put(assinatura.getUserId(), assinatura);
+            }
+            for (Pedido pedido : lote) {
+                pedido.resposta().complete(Optional.ofNullable(porUsuario.get(pedido.usuario())));
+            }
+        } catch (RuntimeException e) {
+            for (Pedido pedido : lote) {
+                pedido.resposta().completeExceptionally(e);
+            }
+        } finally {
+            limitador.registrarLatencia(System.nanoTime() - inicio);
+            lotesEmVoo.release();
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        ativo = false;
+        despachante.interrupt();
+        consultas.shutdownNow();
+    }
+}
@@ -0,0 +1,155 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Modelos.Assinatura;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Repositorios.ContadorAssinaturaRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Contadores por plano, por status e por dia de expiração das assinaturas premium ativas.
+ * Cada escrita em Assinatura aplica a diferença entre o estado antigo e o novo na mesma transação,
+ * e uma reconciliação periódica recalcula tudo com GROUP BY e aplica a diferença como incremento para corrigir
+ * desvios (ex.: escritas feitas por fora), sem travar as escritas enquanto conta. Só uma réplica reconcilia por vez,
+ * e os dias de expiração que já passaram saem da tabela nessa hora.
+ * As estatísticas leem só os contadores, cujo número de linhas não depende da quantidade de assinantes.
+ */
+@Service
+public class ContadoresAssinatura {
+    static final String PLANO = "plano:";
+    static final String STATUS = "status:";
+    static final String EXPIRA = "expira:";
+    static final String SEM_FIM = "sem-fim";
+
+    private final ContadorAssinaturaRepository contadorRepository;
+
+    public ContadoresAssinatura(ContadorAssinaturaRepository contadorRepository) {
+        this.contadorRepository = contadorRepository;
+    }
+
+    public record Estatisticas(Map<String, Long> porPlano, Map<String, Long> porStatus,
+                               long premiumAtivos, long expiramHoje, long expiramEm7Dias,
+                               Map<String, Long> porDiaExpiracao) {
+    }
+
+    // antes == null para assinatura nova; precisa rodar na transação que grava a assinatura
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarMudanca(Assinatura antes, Assinatura depois) {
+        contadorRepository.incrementar(diferenca(antes, depois));
+    }
+
+    // versão em lote: antes.get(i) (ou null) vira depois.get(i); um único upsert para o lote inteiro
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarMudancas(List<Assinatura> antes, List<Assinatura> depois) {
+        Map<String, Long> deltas = new HashMap<>();
+        for (int i = 0; i < depois.size(); i++) {
+            acumular(deltas, antes.get(i), depois.get(i));
+        }
+        deltas.values().removeIf(delta -> delta == 0);
+        contadorRepository.incrementar(deltas);
+    }
+
+    static Map<String, Long> diferenca(Assinatura antes, Assinatura depois) {
+        Map<String, Long> deltas = new HashMap<>();
+        acumular(deltas, antes, depois);
+        deltas.values().removeIf(delta -> delta == 0);
+        return deltas;
+    }
+
+    private static void acumular(Map<String, Long> deltas, Assinatura antes, Assinatura depois) {
+        if (antes != null) {
+            for (String chave : chaves(antes)) deltas.merge(chave, -1L, Long::sum);
+        }
+        if (depois != null) {
+            for (String chave : chaves(depois)) deltas.merge(chave, 1L, Long::sum);
+        }
+    }
+
+    private static List<String> chaves(Assinatura assinatura) {
+        List<String> chaves = new ArrayList<>(3);
+        if (assinatura.getPlano() != null) chaves.add(PLANO + assinatura.getPlano());
+        if (assinatura.getStatus() != null) chaves.add(STATUS + assinatura.getStatus());
+        // o dia de expiração só é contado para quem é premium ativo, mesma regra do ehPremium sem o relógio
+        if (assinatura.getPlano() == Assinatura.PlanType.PREMIUM && assinatura.getStatus() == Assinatura.SubscriptionStatus.ATIVO) {
+            chaves.add(EXPIRA + (assinatura.getFimAssinatura() == null ? SEM_FIM : assinatura.getFimAssinatura().toLocalDate().toString()));
+        }
+        return chaves;
+    }
+
+    public Estatisticas estatisticas() {
+        return estatisticas(contadorRepository.listar(), LocalDate.now());
+    }
+
+    // a precisão da expiração é o dia: quem vence mais tarde hoje ainda conta como ativo
+    static Estatisticas estatisticas(Map<String, Long> contadores, LocalDate hoje) {
+        Map<String, Long> porPlano = new TreeMap<>();
+        Map<String, Long> porStatus = new TreeMap<>();
+        Map<String, Long> porDia = new TreeMap<>();
+        long ativos = 0, expiramHoje = 0, expiramEm7Dias = 0;
+
+        String hojeTexto = hoje.toString();
+        String limite7Dias = hoje.plusDays(7).toString();
+        for (Map.Entry<String, Long> contador : contadores.entrySet()) {
+            String chave = contador.getKey();
+            long total = contador.getValue();
+            if (total == 0) continue;
+
+            if (chave.startsWith(PLANO)) {
+                porPlano.put(chave.substring(PLANO.length()), total);
+            } else if (chave.startsWith(STATUS)) {
+                porStatus.put(chave.substring(STATUS.length()), total);
+            } else if (chave.startsWith(EXPIRA)) {
+                String dia = chave.substring(EXPIRA.length());
+                if (dia.equals(SEM_FIM)) {
+                    ativos += total;
+                } else if (dia.compareTo(hojeTexto) >= 0) {
+                    // datas ISO (yyyy-MM-dd) comparam corretamente como texto
+                    ativos += total;
+                    porDia.put(dia, total);
+                    if (dia.equals(hojeTexto)) expiramHoje += total;
+                    if (dia.compareTo(limite7Dias) <= 0) expiramEm7Dias += total;
+                }
+            }
+        }
+        return new Estatisticas(porPlano, porStatus, ativos, expiramHoje, expiramEm7Dias, porDia);
+    }
+
+    // a correção entra como incremento: escritas feitas depois da fotografia já somaram os próprios deltas
+    // e continuam valendo. Como incremento ela não pode ser aplicada duas vezes, então cada rodada segura a trava
+    // de reconciliação até o commit, e a réplica que não consegue a trava pula a rodada
+    @Transactional
+    @Scheduled(initialDelayString = "${assinatura.contadores.reconciliacao-ms:600000}",
+            fixedDelayString = "${assinatura.contadores.reconciliacao-ms:600000}")
+    public void reconciliar() {
+        if (!contadorRepository.travarReconciliacao()) return;
+
+        LocalDate hoje = LocalDate.now();
+        ContadorAssinaturaRepository.Fotografia fotografia = contadorRepository.fotografar(hoje);
+        Map<String, Long> correcao = correcao(fotografia.contadores(), fotografia.recalculados(), hoje);
+        if (!correcao.isEmpty()) {
+            System.err.println("Contadores de assinatura divergentes corrigidos na reconciliação: " + correcao);
+            contadorRepository.incrementar(correcao);
+        }
+        contadorRepository.removerExpiracoesAntesDe(hoje);
+        contadorRepository.removerZerados();
+    }
+
+    // os dias que já passaram não são corrigidos: a reconciliação apaga essas linhas
+    static Map<String, Long> correcao(Map<String, Long> contadores, Map<String, Long> recalculados, LocalDate hoje) {
+        Map<String, Long> deltas = new HashMap<>(recalculados);
+        contadores.forEach((chave, total) -> deltas.merge(chave, -total, Long::sum));
+        String hojeTexto = hoje.toString();
+        deltas.keySet().removeIf(chave -> chave.startsWith(EXPIRA) && !chave.equals(EXPIRA + SEM_FIM)
+                && chave.substring(EXPIRA.length()).compareTo(hojeTexto) < 0);
+        deltas.values().removeIf(delta -> delta == 0);
+        return deltas;
+    }
+}
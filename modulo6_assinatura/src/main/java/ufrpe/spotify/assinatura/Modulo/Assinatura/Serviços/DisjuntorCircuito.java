@@ -0,0 +1,63 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Disjuntor das leituras de assinatura no banco.
+ * Depois de N falhas seguidas fica aberto (nenhuma chamada passa) pelo tempo configurado,
+ * então libera uma única chamada de teste: se ela der certo fecha, se falhar abre de novo.
+ */
+@Component
+public class DisjuntorCircuito {
+
+    public enum Estado { FECHADO, ABERTO, MEIO_ABERTO }
+
+    private final int limiteFalhas;
+    private final long tempoAbertoNanos;
+
+    private Estado estado = Estado.FECHADO;
+    private int falhasSeguidas;
+    private long abertoEm;
+
+    public DisjuntorCircuito(@Value("${assinatura.disjuntor.falhas:5}") int limiteFalhas,
+                             @Value("${assinatura.disjuntor.aberto-ms:5000}") long tempoAbertoMs) {
+        this.limiteFalhas = limiteFalhas;
+        this.tempoAbertoNanos = TimeUnit.MILLISECONDS.toNanos(tempoAbertoMs);
+    }
+
+    public synchronized boolean permite() {
+        switch (estado) {
+            case FECHADO:
+                return true;
+            case ABERTO:
+                if (System.nanoTime() - abertoEm >= tempoAbertoNanos) {
+                    estado = Estado.MEIO_ABERTO;
+                    return true;
+                }
+                return false;
+            default:
+                // já existe uma chamada de teste em andamento
+                return false;
+        }
+    }
+
+    public synchronized void registrarSucesso() {
+        falhasSeguidas = 0;
+        estado = Estado.FECHADO;
+    }
+
+    public synchronized void registrarFalha() {
+        falhasSeguidas++;
+        if (estado == Estado.MEIO_ABERTO || falhasSeguidas >= limiteFalhas) {
+            estado = Estado.ABERTO;
+            abertoEm = System.nanoTime();
+        }
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+}
@@ -0,0 +1,435 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.CRC32;
+
+/**
+ * Log local só de acréscimo com os pedidos de upgrade assíncronos. Um pedido só é aceito depois de gravado
+ * e sincronizado em disco; as gravações que chegam juntas dividem o mesmo fsync (group commit).
+ * O número da operação é a posição no log. O checkpoint guarda até onde o processador já aplicou no banco,
+ * então depois de uma queda tudo o que está no log além do checkpoint volta para a fila.
+ * Quando tudo foi aplicado e o log passou do limite de tamanho, ele é truncado.
+ * Operações que o processador desistiu de aplicar ficam em upgrades.rejeitados, no mesmo formato, e aparecem como FALHOU.
+ * Cada réplica tem o próprio log, então os números só valem junto com o id do log (upgrades.id, criado na primeira
+ * subida): quem consulta uma operação precisa chegar à réplica dona da pasta.
+ * O estado de uma operação fica disponível pelas últimas retencao-operacoes operações; na compactação do log as
+ * rejeitadas mais antigas que isso saem do arquivo e da memória, e essas operações passam a ser DESCONHECIDA.
+ */
+@Component
+public class FilaUpgradeDuravel {
+    // operação (8 bytes) + usuário (4 bytes) + CRC32 dos 12 bytes anteriores (4 bytes)
+    static final int TAMANHO_REGISTRO = 16;
+    private static final int MAXIMO_POR_FSYNC = 4096;
+    private static final long TIMEOUT_GRAVACAO_SEGUNDOS = 5;
+
+    public record Upgrade(long operacao, int usuario) {
+    }
+
+    public enum Estado { PENDENTE, APLICADA, FALHOU, DESCONHECIDA }
+
+    private record Pedido(int usuario, CompletableFuture<Long> resposta) {
+    }
+
+    private final Path pasta;
+    private final Path arquivoLog;
+    private final Path arquivoCheckpoint;
+    private final Path arquivoRejeitados;
+    private final String idLog;
+    private final long limiteCompactacao;
+    private final long maximoPendentes;
+    private final long retencaoOperacoes;
+    private final FileChannel canal;
+    // trocado pela compactação (thread gravadora) enquanto o processador pode estar rejeitando: só com a trava
+    private FileChannel canalRejeitados;
+    private final Object travaRejeitados = new Object();
+    private final Set<Long> rejeitadas = ConcurrentHashMap.newKeySet();
+
+    private final LinkedBlockingQueue<Pedido> pedidos = new LinkedBlockingQueue<>();
+    // pedidos já duráveis, na ordem do log, esperando o processador
+    private final LinkedBlockingQueue<Upgrade> duraveis = new LinkedBlockingQueue<>();
+    private volatile long proximaOperacao;
+    private volatile long aplicadaAte;
+    // tamanho do log até o último registro completo; só a thread gravadora altera depois da recuperação
+    private long tamanhoLog;
+    private final Thread gravador;
+    private volatile boolean ativo = true;
+
+    public FilaUpgradeDuravel(@Value("${assinatura.upgrade.diretorio:dados/upgrades}") String diretorio,
+                              @Value("${assinatura.upgrade.id-log:}") String idLogConfigurado,
+                              @Value("${assinatura.upgrade.compactar-bytes:67108864}") long limiteCompactacao,
+                              @Value("${assinatura.upgrade.maximo-pendentes:1000000}") long maximoPendentes,
+                              @Value("${assinatura.upgrade.retencao-operacoes:10000000}") long retencaoOperacoes) throws IOException {
+        this.pasta = Path.of(diretorio);
+        Files.createDirectories(pasta);
+        this.arquivoLog = pasta.resolve("upgrades.log");
+        this.arquivoCheckpoint = pasta.resolve("upgrades.checkpoint");
+        this.arquivoRejeitados = pasta.resolve("upgrades.rejeitados");
+        this.limiteCompactacao = limiteCompactacao;
+        this.maximoPendentes = maximoPendentes;
+        // uma operação ainda pendente nunca pode sair da janela de retenção
+        this.retencaoOperacoes = Math.max(retencaoOperacoes, maximoPendentes);
+
+        this.idLog = lerOuCriarIdLog(idLogConfigurado);
+        this.aplicadaAte = lerCheckpoint();
+        this.canal = FileChannel.open(arquivoLog, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.canalRejeitados = abrirRejeitados();
+        // as entradas dos arquivos recém-criados também precisam estar em disco antes do primeiro pedido aceito
+        sincronizarPasta();
+        this.proximaOperacao = recuperar() + 1;
+        carregarRejeitadas();
+
+        this.gravador = new Thread(this::gravar, "fila-upgrade-duravel");
+        this.gravador.setDaemon(true);
+        this.gravador.start();
+    }
+
+    // bloqueia até o pedido estar em disco; devolve o número da operação
+    public long enfileirar(int usuario) {
+        if (proximaOperacao - 1 - aplicadaAte >= maximoPendentes || !ativo) {
+            throw new AssinaturaIndisponivelException("Fila de upgrades cheia, tente novamente em instantes");
+        }
+        Pedido pedido = new Pedido(usuario, new CompletableFuture<>());
+        pedidos.add(pedido);
+        try {
+            return pedido.resposta().get(TIMEOUT_GRAVACAO_SEGUNDOS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssinaturaIndisponivelException("Pedido de upgrade interrompido");
+        } catch (ExecutionException | TimeoutException e) {
+            // se a gravação terminar depois do timeout o pedido é aplicado mesmo assim; um upgrade repetido é inofensivo
+            throw new AssinaturaIndisponivelException("Não foi possível registrar o pedido de upgrade");
+        }
+    }
+
+    // próximos pedidos duráveis, na ordem do log; espera até esperaMs pelo primeiro
+    public List<Upgrade> proximoLote(int maximo, long esperaMs) throws InterruptedException {
+        List<Upgrade> lote = new ArrayList<>();
+        Upgrade primeiro = duraveis.poll(esperaMs, TimeUnit.MILLISECONDS);
+        if (primeiro == null) return lote;
+        lote.add(primeiro);
+        duraveis.drainTo(lote, maximo - 1);
+        return lote;
+    }
+
+    // grava o checkpoint em disco antes de considerar as operações aplicadas
+    public void confirmarAte(long operacao) throws IOException {
+        if (operacao <= aplicadaAte) return;
+        ByteBuffer conteudo = ByteBuffer.allocate(12);
+        conteudo.putLong(operacao).putInt(crc(operacao, 0)).flip();
+        gravarAtomico(arquivoCheckpoint, conteudo);
+        aplicadaAte = operacao;
+    }
+
+    public String idLog() {
+        return idLog;
+    }
+
+    // arquivo temporário sincronizado e depois trocado de nome. Sem o fsync da pasta, a troca pode se perder numa
+    // queda: o log já compactado voltaria com o checkpoint antigo e a numeração recomeçaria, reaproveitando números
+    // de operação já devolvidos
+    private void gravarAtomico(Path destino, ByteBuffer conteudo) throws IOException {
+        Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try (FileChannel arquivo = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (conteudo.hasRemaining()) arquivo.write(conteudo);
+            arquivo.force(true);
+        }
+        Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        sincronizarPasta();
+    }
+
+    private void sincronizarPasta() throws IOException {
+        try (FileChannel diretorio = FileChannel.open(pasta, StandardOpenOption.READ)) {
+            diretorio.force(true);
+        } catch (IOException e) {
+            // o Windows não abre pastas com FileChannel; lá a troca de nome fica por conta do sistema de arquivos
+            if (!System.getProperty("os.name").startsWith("Windows")) throw e;
+        }
+    }
+
+    // só o processador chama, antes de confirmar o checkpoint que cobre essas operações
+    public void rejeitar(List<Upgrade> upgrades) throws IOException {
+        ByteBuffer buffer = registros(upgrades);
+        synchronized (travaRejeitados) {
+            while (buffer.hasRemaining()) canalRejeitados.write(buffer);
+            canalRejeitados.force(false);
+            for (Upgrade upgrade : upgrades) {
+                rejeitadas.add(upgrade.operacao());
+            }
+        }
+    }
+
+    public Estado estado(long operacao) {
+        if (operacao <= esquecidasAte() || operacao >= proximaOperacao) return Estado.DESCONHECIDA;
+        if (rejeitadas.contains(operacao)) return Estado.FALHOU;
+        return operacao <= aplicadaAte ? Estado.APLICADA : Estado.PENDENTE;
+    }
+
+    public long pendentes() {
+        return proximaOperacao - 1 - aplicadaAte;
+    }
+
+    // operações que já saíram da janela de retenção
+    private long esquecidasAte() {
+        return Math.max(0, proximaOperacao - 1 - retencaoOperacoes);
+    }
+
+    // única thread que escreve no log: numera, grava e faz um fsync por lote de pedidos
+    private void gravar() {
+        List<Pedido> lote = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(MAXIMO_POR_FSYNC * TAMANHO_REGISTRO);
+        while (ativo || !pedidos.isEmpty()) {
+            try {
+                Pedido primeiro = pedidos.poll(1, TimeUnit.SECONDS);
+                if (primeiro == null) {
+                    compactarSeNecessario();
+                    continue;
+                }
+                lote.add(primeiro);
+                pedidos.drainTo(lote, MAXIMO_POR_FSYNC - 1);
+                compactarSeNecessario();
+
+                long operacao = proximaOperacao;
+                buffer.clear();
+                for (Pedido pedido : lote) {
+                    buffer.putLong(operacao).putInt(pedido.usuario()).putInt(crc(operacao, pedido.usuario()));
+                    operacao++;
+                }
+                buffer.flip();
+
+                long tamanhoAnterior = tamanhoLog;
+                try {
+                    while (buffer.hasRemaining()) canal.write(buffer);
+                    canal.force(false);
+                } catch (IOException e) {
+                    // desfaz a gravação parcial: os números não foram consumidos e nenhum pedido foi aceito
+                    System.err.println("Falha ao gravar pedidos de upgrade: " + e.getMessage());
+                    try {
+                        canal.truncate(tamanhoAnterior);
+                        canal.position(tamanhoAnterior);
+                    } catch (IOException ignorada) {
+                        // a recuperação descarta o final inválido na próxima subida
+                    }
+                    for (Pedido pedido : lote) pedido.resposta().completeExceptionally(e);
+                    continue;
+                }
+
+                long primeiraDoLote = proximaOperacao;
+                operacao = primeiraDoLote;
+                for (Pedido pedido : lote) {
+                    duraveis.add(new Upgrade(operacao++, pedido.usuario()));
+                }
+                // publicado antes de responder: quem recebe o número já consegue consultar o estado
+                proximaOperacao = operacao;
+                operacao = primeiraDoLote;
+                for (Pedido pedido : lote) {
+                    pedido.resposta().complete(operacao++);
+                }
+                tamanhoLog = tamanhoAnterior + (long) lote.size() * TAMANHO_REGISTRO;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lote.clear();
+            }
+        }
+    }
+
+    // só trunca quando tudo o que está no log já está coberto pelo checkpoint
+    private void compactarSeNecessario() {
+        try {
+            if (tamanhoLog > limiteCompactacao && aplicadaAte >= proximaOperacao - 1) {
+                canal.truncate(0);
+                canal.position(0);
+                tamanhoLog = 0;
+                canal.force(true);
+                compactarRejeitados();
+            }
+        } catch (IOException e) {
+            System.err.println("Falha ao compactar o log de upgrades: " + e.getMessage());
+        }
+    }
+
+    // reescreve upgrades.rejeitados só com as operações dentro da retenção; numa falha o arquivo antigo continua valendo
+    private void compactarRejeitados() throws IOException {
+        synchronized (travaRejeitados) {
+            long limite = esquecidasAte();
+            List<Upgrade> mantidas = new ArrayList<>();
+            lerRejeitados(mantidas);
+            mantidas.removeIf(upgrade -> upgrade.operacao() <= limite);
+
+            gravarAtomico(arquivoRejeitados, registros(mantidas));
+            FileChannel novo = abrirRejeitados();
+            novo.position(novo.size());
+            canalRejeitados.close();
+            canalRejeitados = novo;
+            rejeitadas.removeIf(operacao -> operacao <= limite);
+        }
+    }
+
+    // relê o log, devolve para a fila o que ainda não foi aplicado e descarta um final incompleto (queda no meio da gravação)
+    private long recuperar() throws IOException {
+        long ultima = aplicadaAte;
+        long anterior = 0;
+        long valido = 0;
+        try (InputStream arquivo = Files.newInputStream(arquivoLog);
+             DataInputStream entrada = new DataInputStream(new BufferedInputStream(arquivo))) {
+            while (true) {
+                long operacao = entrada.readLong();
+                int usuario = entrada.readInt();
+                int crc = entrada.readInt();
+                // os números só crescem dentro do log; fora disso é lixo de uma gravação interrompida
+                if (crc != crc(operacao, usuario) || operacao <= anterior) break;
+                if (operacao > aplicadaAte) {
+                    duraveis.add(new Upgrade(operacao, usuario));
+                }
+                ultima = Math.max(ultima, operacao);
+                anterior = operacao;
+                valido += TAMANHO_REGISTRO;
+            }
+        } catch (EOFException fim) {
+            // fim do log (ou registro pela metade)
+        }
+        if (canal.size() > valido) {
+            System.err.println("Log de upgrades com final inválido, descartando " + (canal.size() - valido) + " bytes");
+            canal.truncate(valido);
+            canal.force(true);
+        }
+        canal.position(valido);
+        tamanhoLog = valido;
+        return ultima;
+    }
+
+    // a mesma operação pode aparecer duas vezes se o processo caiu entre a rejeição e o checkpoint
+    private void carregarRejeitadas() throws IOException {
+        List<Upgrade> registros = new ArrayList<>();
+        long valido = lerRejeitados(registros);
+        long limite = esquecidasAte();
+        for (Upgrade upgrade : registros) {
+            if (upgrade.operacao() > limite) rejeitadas.add(upgrade.operacao());
+        }
+        if (canalRejeitados.size() > valido) {
+            canalRejeitados.truncate(valido);
+            canalRejeitados.force(true);
+        }
+        canalRejeitados.position(valido);
+    }
+
+    // devolve o tamanho até o último registro válido
+    private long lerRejeitados(List<Upgrade> destino) throws IOException {
+        long valido = 0;
+        try (InputStream arquivo = Files.newInputStream(arquivoRejeitados);
+             DataInputStream entrada = new DataInputStream(new BufferedInputStream(arquivo))) {
+            while (true) {
+                long operacao = entrada.readLong();
+                int usuario = entrada.readInt();
+                if (entrada.readInt() != crc(operacao, usuario)) break;
+                destino.add(new Upgrade(operacao, usuario));
+                valido += TAMANHO_REGISTRO;
+            }
+        } catch (EOFException fim) {
+            // fim do arquivo (ou registro pela metade)
+        }
+        return valido;
+    }
+
+    private FileChannel abrirRejeitados() throws IOException {
+        return FileChannel.open(arquivoRejeitados, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static ByteBuffer registros(List<Upgrade> upgrades) {
+        ByteBuffer buffer = ByteBuffer.allocate(upgrades.size() * TAMANHO_REGISTRO);
+        for (Upgrade upgrade : upgrades) {
+            buffer.putLong(upgrade.operacao()).putInt(upgrade.usuario()).putInt(crc(upgrade.operacao(), upgrade.usuario()));
+        }
+        return buffer.flip();
+    }
+
+    // o id pertence à pasta, não ao processo: continua o mesmo depois de reiniciar, junto com a numeração.
+    // Configurado (ex.: o nome estável da réplica), serve de chave para o balanceador rotear as consultas
+    private String lerOuCriarIdLog(String configurado) throws IOException {
+        if (!configurado.isEmpty() && !configurado.matches("[A-Za-z0-9_-]{1,64}")) {
+            throw new IllegalArgumentException("assinatura.upgrade.id-log inválido: " + configurado);
+        }
+        Path arquivoId = pasta.resolve("upgrades.id");
+        try {
+            String gravado = Files.readString(arquivoId, StandardCharsets.US_ASCII).trim();
+            if (!configurado.isEmpty() && !configurado.equals(gravado)) {
+                throw new IllegalStateException("A pasta " + pasta + " pertence ao log " + gravado + ", não a " + configurado);
+            }
+            return gravado;
+        } catch (NoSuchFileException e) {
+            String novo = configurado;
+            if (novo.isEmpty()) {
+                byte[] aleatorio = new byte[8];
+                new SecureRandom().nextBytes(aleatorio);
+                novo = HexFormat.of().formatHex(aleatorio);
+            }
+            gravarAtomico(arquivoId, ByteBuffer.wrap(novo.getBytes(StandardCharsets.US_ASCII)));
+            return novo;
+        }
+    }
+
+    private long lerCheckpoint() throws IOException {
+        try {
+            ByteBuffer conteudo = ByteBuffer.wrap(Files.readAllBytes(arquivoCheckpoint));
+            long operacao = conteudo.remaining() == 12 ? conteudo.getLong() : -1;
+            if (operacao < 0 || conteudo.getInt() != crc(operacao, 0)) {
+                throw new IOException("Checkpoint de upgrades corrompido: " + arquivoCheckpoint);
+            }
+            return operacao;
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private static int crc(long operacao, int usuario) {
+        CRC32 crc = new CRC32();
+        crc.update(ByteBuffer.allocate(12).putLong(operacao).putInt(usuario).flip());
+        return (int) crc.getValue();
+    }
+
+    @PreDestroy
+    void encerrar() {
+        ativo = false;
+        try {
+            gravador.join(TimeUnit.SECONDS.toMillis(5));
+            canal.close();
+            synchronized (travaRejeitados) {
+                canalRejeitados.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
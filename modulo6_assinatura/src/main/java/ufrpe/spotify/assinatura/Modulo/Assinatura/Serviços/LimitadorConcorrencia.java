@@ -0,0 +1,89 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limitador de concorrência adaptativo (AIMD) guiado pela latência observada no banco.
+ * Enquanto as consultas ficam abaixo da latência alvo o limite cresce aos poucos (+1/limite por amostra),
+ * quando passam do alvo o limite é multiplicado pelo fator de redução (no máximo uma vez por janela de latência).
+ */
+@Component
+public class LimitadorConcorrencia {
+
+    // cada prioridade só pode ocupar uma fração do limite atual, então leituras são descartadas primeiro
+    public enum Prioridade {
+        LEITURA(0.7), ESCRITA(0.9), INTERNA(1.0);
+
+        private final double fracao;
+
+        Prioridade(double fracao) {
+            this.fracao = fracao;
+        }
+    }
+
+    private final int limiteMinimo;
+    private final int limiteMaximo;
+    private final long latenciaAlvoNanos;
+    private final double fatorReducao;
+
+    private final AtomicInteger emAndamento = new AtomicInteger();
+    private volatile double limite;
+    private long ultimaReducao = System.nanoTime() - TimeUnit.HOURS.toNanos(1);
+
+    public LimitadorConcorrencia(@Value("${assinatura.limitador.limite-inicial:20}") int limiteInicial,
+                                 @Value("${assinatura.limitador.limite-minimo:2}") int limiteMinimo,
+                                 @Value("${assinatura.limitador.limite-maximo:200}") int limiteMaximo,
+                                 @Value("${assinatura.limitador.latencia-alvo-ms:150}") long latenciaAlvoMs,
+                                 @Value("${assinatura.limitador.fator-reducao:0.9}") double fatorReducao) {
+        this.limiteMinimo = limiteMinimo;
+        this.limiteMaximo = limiteMaximo;
+        this.latenciaAlvoNanos = TimeUnit.MILLISECONDS.toNanos(latenciaAlvoMs);
+        this.fatorReducao = fatorReducao;
+        this.limite = Math.max(limiteMinimo, Math.min(limiteMaximo, limiteInicial));
+    }
+
+    // retorna false quando a requisição deve ser descartada, sem enfileirar
+    public boolean tentarAdquirir(Prioridade prioridade) {
+        int teto = Math.max(1, (int) (limite * prioridade.fracao));
+        while (true) {
+            int atual = emAndamento.get();
+            if (atual >= teto) {
+                return false;
+            }
+            if (emAndamento.compareAndSet(atual, atual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void liberar() {
+        emAndamento.decrementAndGet();
+    }
+
+    // chamado pelo serviço com o tempo de cada ida ao banco
+    public synchronized void registrarLatencia(long nanos) {
+        long agora = System.nanoTime();
+        if (nanos > latenciaAlvoNanos) {
+            // evita reduzir várias vezes pelas mesmas requisições lentas que estavam em voo juntas
+            if (agora - ultimaReducao > nanos) {
+                limite = Math.max(limiteMinimo, limite * fatorReducao);
+                ultimaReducao = agora;
+            }
+        } else if (emAndamento.get() >= limite / 2) {
+            // só cresce se o limite atual está de fato sendo usado
+            limite = Math.min(limiteMaximo, limite + 1 / limite);
+        }
+    }
+
+    public int getLimite() {
+        return (int) limite;
+    }
+
+    public int getEmAndamento() {
+        return emAndamento.get();
+    }
+}
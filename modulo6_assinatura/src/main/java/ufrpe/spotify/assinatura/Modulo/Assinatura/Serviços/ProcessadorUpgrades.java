@@ -0,0 +1,177 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.IOException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aplica no banco os upgrades da FilaUpgradeDuravel em lotes: pedidos repetidos do mesmo usuário viram um só,
+ * e cada lote é uma transação com um upsert em batch. Usa uma conexão por vez, então um pico de upgrades
+ * não toma o pool das leituras de status. O checkpoint só avança depois do commit.
+ * Falhas de conexão ou de trava são tentadas de novo sem limite, com espera crescente. Qualquer outra falha
+ * tem tentativas-maximas tentativas; depois disso cada usuário do lote é aplicado sozinho e quem falhar de novo
+ * vai para os rejeitados da fila, para um pedido inválido não travar todos os que vêm depois dele.
+ * Começa a consumir só depois que o contexto sobe (SmartLifecycle) e para antes da fila ser fechada.
+ */
+@Component
+public class ProcessadorUpgrades implements SmartLifecycle {
+    private static final long ESPERA_MAXIMA_MS = 5000;
+
+    private final FilaUpgradeDuravel fila;
+    private final ServiçoAssinatura serviçoAssinatura;
+    private final int tamanhoLote;
+    private final int tentativasMaximas;
+    private final long esperaInicialMs;
+    private Thread processador;
+    private volatile boolean ativo;
+
+    public ProcessadorUpgrades(FilaUpgradeDuravel fila, ServiçoAssinatura serviçoAssinatura,
+                               @Value("${assinatura.upgrade.tamanho-lote:500}") int tamanhoLote,
+                               @Value("${assinatura.upgrade.tentativas-maximas:5}") int tentativasMaximas,
+                               @Value("${assinatura.upgrade.espera-inicial-ms:100}") long esperaInicialMs) {
+        this.fila = fila;
+        this.serviçoAssinatura = serviçoAssinatura;
+        this.tamanhoLote = tamanhoLote;
+        this.tentativasMaximas = tentativasMaximas;
+        this.esperaInicialMs = esperaInicialMs;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (processador != null) return;
+        ativo = true;
+        processador = new Thread(this::processar, "processador-upgrades");
+        processador.setDaemon(true);
+        processador.start();
+    }
+
+    // o que não foi aplicado continua no log e é retomado na próxima subida
+    @Override
+    public synchronized void stop() {
+        if (processador == null) return;
+        ativo = false;
+        processador.interrupt();
+        try {
+            processador.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        processador = null;
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return processador != null;
+    }
+
+    private void processar() {
+        while (ativo) {
+            try {
+                List<FilaUpgradeDuravel.Upgrade> lote = fila.proximoLote(tamanhoLote, 1000);
+                if (!lote.isEmpty()) aplicar(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void aplicar(List<FilaUpgradeDuravel.Upgrade> lote) throws InterruptedException {
+        Set<Integer> usuarios = new LinkedHashSet<>();
+        for (FilaUpgradeDuravel.Upgrade upgrade : lote) {
+            usuarios.add(upgrade.usuario());
+        }
+
+        Set<Integer> rejeitados = Set.of();
+        long esperaMs = esperaInicialMs;
+        int falhas = 0;
+        while (true) {
+            try {
+                serviçoAssinatura.upgradePremiumEmLote(usuarios);
+                break;
+            } catch (Exception e) {
+                // interrompido pelo stop(): o lote continua pendente no log
+                if (!ativo) throw new InterruptedException("processador parado");
+                System.err.println("Falha ao aplicar lote de " + usuarios.size() + " upgrades: " + e.getMessage());
+                if (!transitoria(e) && ++falhas >= tentativasMaximas) {
+                    rejeitados = aplicarUmPorUm(usuarios);
+                    break;
+                }
+                esperaMs = esperar(esperaMs);
+            }
+        }
+
+        List<FilaUpgradeDuravel.Upgrade> descartados = new ArrayList<>();
+        for (FilaUpgradeDuravel.Upgrade upgrade : lote) {
+            if (rejeitados.contains(upgrade.usuario())) descartados.add(upgrade);
+        }
+        long ultima = lote.get(lote.size() - 1).operacao();
+        esperaMs = esperaInicialMs;
+        while (true) {
+            try {
+                // os rejeitados vão para o disco antes do checkpoint: numa queda entre os dois o lote é
+                // reprocessado, nunca perdido
+                if (!descartados.isEmpty()) fila.rejeitar(descartados);
+                fila.confirmarAte(ultima);
+                return;
+            } catch (IOException e) {
+                System.err.println("Falha ao gravar o checkpoint de upgrades: " + e.getMessage());
+                esperaMs = esperar(esperaMs);
+            }
+        }
+    }
+
+    // devolve os usuários que falharam sozinhos com um erro que não é transitório
+    private Set<Integer> aplicarUmPorUm(Set<Integer> usuarios) throws InterruptedException {
+        Set<Integer> rejeitados = new HashSet<>();
+        for (int usuario : usuarios) {
+            long esperaMs = esperaInicialMs;
+            while (true) {
+                try {
+                    serviçoAssinatura.upgradePremiumEmLote(List.of(usuario));
+                    break;
+                } catch (Exception e) {
+                    if (!ativo) throw new InterruptedException("processador parado");
+                    if (!transitoria(e)) {
+                        System.err.println("Upgrade do usuário " + usuario + " rejeitado: " + e.getMessage());
+                        rejeitados.add(usuario);
+                        break;
+                    }
+                    esperaMs = esperar(esperaMs);
+                }
+            }
+        }
+        return rejeitados;
+    }
+
+    private static long esperar(long esperaMs) throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(esperaMs);
+        return Math.min(esperaMs * 2, ESPERA_MAXIMA_MS);
+    }
+
+    // banco fora do ar, pool esgotado, deadlock ou timeout de trava: tentar de novo mais tarde resolve
+    static boolean transitoria(Throwable erro) {
+        for (Throwable causa = erro; causa != null; causa = causa.getCause()) {
+            if (causa instanceof TransientDataAccessException || causa instanceof RecoverableDataAccessException
+                    || causa instanceof DataAccessResourceFailureException || causa instanceof CannotCreateTransactionException
+                    || causa instanceof SQLTransientException || causa instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,34 +1,100 @@
     package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
 
 
+    import jakarta.annotation.PreDestroy;
+    import org.springframework.beans.factory.annotation.Value;
     import org.springframework.stereotype.Service;
+    import org.springframework.transaction.annotation.Transactional;
+    import org.springframework.transaction.support.TransactionSynchronization;
+    import org.springframework.transaction.support.TransactionSynchronizationManager;
+    import ufrpe.spotify.assinatura.Modulo.Assinatura.Rastreamento.Rastreador;
+    import ufrpe.spotify.assinatura.Modulo.Assinatura.Rastreamento.Span;
     import ufrpe.spotify.assinatura.Modulo.Assinatura.Modelos.Assinatura;
+    import ufrpe.spotify.assinatura.Modulo.Assinatura.Repositorios.AssinaturaLoteRepository;
     import ufrpe.spotify.assinatura.Modulo.Assinatura.Repositorios.AssinaturaRepository;
 
     import java.time.LocalDateTime;
+    import java.util.ArrayList;
+    import java.util.Collection;
+    import java.util.HashMap;
+    import java.util.List;
+    import java.util.Map;
+    import java.util.Optional;
+    import java.util.Set;
     import java.util.UUID;
+    import java.util.concurrent.CompletableFuture;
+    import java.util.concurrent.ConcurrentHashMap;
+    import java.util.concurrent.ExecutionException;
+    import java.util.concurrent.ExecutorService;
+    import java.util.concurrent.Executors;
+    import java.util.concurrent.TimeUnit;
+    import java.util.concurrent.TimeoutException;
 
     @Service
     public class ServiçoAssinatura {
         private final AssinaturaRepository assinaturaRepository;
+        private final AssinaturaLoteRepository loteRepository;
+        private final LimitadorConcorrencia limitador;
+        private final Rastreador rastreador;
+        private final DisjuntorCircuito disjuntor;
+        private final CarregadorAssinaturas carregador;
+        private final ContadoresAssinatura contadores;
+        private final long timeoutLeituraMs;
+        private final int maximoRespostasGuardadas;
 
-        public ServiçoAssinatura(AssinaturaRepository repository) {
+        // última resposta conhecida por usuário, servida (marcada como desatualizada) quando o banco falha
+        private final ConcurrentHashMap<Integer, Boolean> ultimasRespostas = new ConcurrentHashMap<>();
+        // usuários com uma revalidação em segundo plano em andamento (no máximo uma por usuário)
+        private final Set<Integer> revalidando = ConcurrentHashMap.newKeySet();
+        private final ExecutorService revalidacoes = Executors.newVirtualThreadPerTaskExecutor();
+
+        public ServiçoAssinatura(AssinaturaRepository repository, AssinaturaLoteRepository loteRepository, LimitadorConcorrencia limitador, Rastreador rastreador,
+                                 DisjuntorCircuito disjuntor, CarregadorAssinaturas carregador, ContadoresAssinatura contadores,
+                                 @Value("${assinatura.leitura.timeout-ms:300}") long timeoutLeituraMs,
+                                 @Value("${assinatura.leitura.maximo-respostas-guardadas:500000}") int maximoRespostasGuardadas) {
             this.assinaturaRepository = repository;
+            this.loteRepository = loteRepository;
+            this.limitador = limitador;
+            this.rastreador = rastreador;
+            this.disjuntor = disjuntor;
+            this.carregador = carregador;
+            this.contadores = contadores;
+            this.timeoutLeituraMs = timeoutLeituraMs;
+            this.maximoRespostasGuardadas = maximoRespostasGuardadas;
         }
 
         public boolean ehPremium(int usuario){
-           return assinaturaRepository.findByUserId(usuario).map(
-                   sub -> sub.getPlano() == Assinatura.PlanType.PREMIUM &&
-                           sub.getStatus() == Assinatura.SubscriptionStatus.ATIVO &&
-                           (sub.getFimAssinatura() == null || sub.getFimAssinatura().isAfter(java.time.LocalDateTime.now())
-                           )).orElse(false);
+            return consultarPremium(usuario).premium();
+        }
 
+        // leitura com timeout e disjuntor; se o banco falhar, devolve a última resposta e revalida em segundo plano
+        public StatusPremium consultarPremium(int usuario) {
+            if (disjuntor.permite()) {
+                try {
+                    boolean premium = ehPremium(buscarComTimeout(usuario));
+                    disjuntor.registrarSucesso();
+                    guardarResposta(usuario, premium);
+                    return new StatusPremium(premium, false);
+                } catch (TimeoutException | ExecutionException e) {
+                    disjuntor.registrarFalha();
+                }
+            }
 
+            Boolean anterior = ultimasRespostas.get(usuario);
+            if (anterior == null) {
+                throw new AssinaturaIndisponivelException("Não foi possível consultar a assinatura no momento");
+            }
+            revalidarEmSegundoPlano(usuario);
+            return new StatusPremium(anterior, true);
         }
 
+        // os contadores agregados mudam na mesma transação que grava a assinatura
+        @Transactional
         public Assinatura upgradePremium(int usuario) {
 
-            Assinatura assinatura = assinaturaRepository.findByUserId(usuario)
+            Optional<Assinatura> existente = buscarParaAtualizar(usuario);
+            Assinatura antes = existente.map(ServiçoAssinatura::copiar).orElse(null);
+            Assinatura assinatura = existente
                     .orElseGet(() -> {
                         // Se não encontrar no banco, entra aqui e cria um novo
                         Assinatura nova = new Assinatura();
@@ -37,11 +103,164 @@
                     });
 
             // Atualiza os dados (seja da nova ou da que veio do banco)
+            tornarPremium(assinatura, LocalDateTime.now());
+
+            long inicio = System.nanoTime();
+            try {
+                Assinatura salva = rastreador.emSpan("AssinaturaRepository.save", Span.CLIENTE, () -> assinaturaRepository.save(assinatura));
+                rastreador.emSpan("ContadoresAssinatura.registrarMudanca", Span.CLIENTE, () -> {
+                    contadores.registrarMudanca(antes, salva);
+                    return null;
+                });
+                guardarRespostasAposCommit(List.of(usuario));
+                return salva;
+            } finally {
+                limitador.registrarLatencia(System.nanoTime() - inicio);
+            }
+        }
+
+        // usado pelo ProcessadorUpgrades: pedidos repetidos do mesmo usuário já chegam juntados em um só
+        @Transactional
+        public void upgradePremiumEmLote(Collection<Integer> usuarios) {
+            // sem registrarLatencia: o tempo de um lote de centenas de linhas não é a latência de uma leitura,
+            // e o limitador das leituras de status passaria a cortar a concorrência a cada lote aplicado
+            Map<Integer, Assinatura> existentes = new HashMap<>();
+            for (Assinatura assinatura : rastreador.emSpan("AssinaturaLoteRepository.buscarPorUsuariosParaAtualizar", Span.CLIENTE,
+                    () -> loteRepository.buscarPorUsuariosParaAtualizar(usuarios))) {
+                existentes.put(assinatura.getUserId(), assinatura);
+            }
+
+            LocalDateTime agora = LocalDateTime.now();
+            List<Assinatura> antes = new ArrayList<>(usuarios.size());
+            List<Assinatura> depois = new ArrayList<>(usuarios.size());
+            for (int usuario : usuarios) {
+                Assinatura anterior = existentes.get(usuario);
+                Assinatura nova = anterior == null ? new Assinatura() : copiar(anterior);
+                nova.setUserId(usuario);
+                tornarPremium(nova, agora);
+                antes.add(anterior);
+                depois.add(nova);
+            }
+
+            rastreador.emSpan("AssinaturaLoteRepository.gravar", Span.CLIENTE, () -> {
+                loteRepository.gravar(depois);
+                contadores.registrarMudancas(antes, depois);
+                return null;
+            });
+
+            guardarRespostasAposCommit(usuarios);
+        }
+
+        private static void tornarPremium(Assinatura assinatura, LocalDateTime agora) {
             assinatura.setStatus(Assinatura.SubscriptionStatus.ATIVO);
             assinatura.setPlano(Assinatura.PlanType.PREMIUM);
-            assinatura.setFimAssinatura(LocalDateTime.now().plusMonths(1));
+            assinatura.setFimAssinatura(agora.plusMonths(1));
+        }
+
+        private static boolean ehPremium(Optional<Assinatura> assinatura) {
+            return assinatura.map(
+                    sub -> sub.getPlano() == Assinatura.PlanType.PREMIUM &&
+                            sub.getStatus() == Assinatura.SubscriptionStatus.ATIVO &&
+                            (sub.getFimAssinatura() == null || sub.getFimAssinatura().isAfter(java.time.LocalDateTime.now())
+                            )).orElse(false);
+        }
+
+        // a consulta entra no próximo lote do carregador; a requisição espera no máximo timeoutLeituraMs
+        private Optional<Assinatura> buscarComTimeout(int usuario) throws TimeoutException, ExecutionException {
+            Span span = rastreador.iniciar("CarregadorAssinaturas.carregar", Span.CLIENTE);
+            try {
+                return aguardarCarregamento(usuario);
+            } catch (TimeoutException | ExecutionException e) {
+                if (span != null) span.marcarErro();
+                throw e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (span != null) span.marcarErro();
+                throw new ExecutionException(e);
+            } finally {
+                rastreador.encerrar(span);
+            }
+        }
+
+        // o pedido é cancelado quando o tempo acaba: o carregador não leva ao banco quem ninguém espera mais
+        private Optional<Assinatura> aguardarCarregamento(int usuario) throws InterruptedException, TimeoutException, ExecutionException {
+            CompletableFuture<Optional<Assinatura>> resposta = carregador.carregar(usuario);
+            try {
+                return resposta.get(timeoutLeituraMs, TimeUnit.MILLISECONDS);
+            } finally {
+                resposta.cancel(false);
+            }
+        }
+
+        private void revalidarEmSegundoPlano(int usuario) {
+            if (!revalidando.add(usuario)) return;
+            try {
+                revalidacoes.execute(() -> {
+                    try {
+                        if (!disjuntor.permite()) return;
+                        boolean premium = ehPremium(aguardarCarregamento(usuario));
+                        disjuntor.registrarSucesso();
+                        guardarResposta(usuario, premium);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        disjuntor.registrarFalha();
+                    } catch (TimeoutException | ExecutionException | RuntimeException e) {
+                        disjuntor.registrarFalha();
+                    } finally {
+                        revalidando.remove(usuario);
+                    }
+                });
+            } catch (RuntimeException e) {
+                revalidando.remove(usuario);
+            }
+        }
+
+        private void guardarResposta(int usuario, boolean premium) {
+            // acima do limite só atualiza quem já está guardado, para a memória não crescer sem fim
+            if (ultimasRespostas.size() < maximoRespostasGuardadas || ultimasRespostas.containsKey(usuario)) {
+                ultimasRespostas.put(usuario, premium);
+            }
+        }
+
+        // um rollback depois do upgrade não pode deixar "premium" guardado como fallback para quando o banco cair
+        private void guardarRespostasAposCommit(Collection<Integer> usuarios) {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                usuarios.forEach(usuario -> guardarResposta(usuario, true));
+                return;
+            }
+            List<Integer> copia = List.copyOf(usuarios);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    copia.forEach(usuario -> guardarResposta(usuario, true));
+                }
+            });
+        }
+
+        // toda ida ao banco alimenta o limitador de concorrência com a latência observada
+        private Optional<Assinatura> buscarParaAtualizar(int usuario) {
+            long inicio = System.nanoTime();
+            try {
+                return rastreador.emSpan("AssinaturaRepository.buscarParaAtualizar", Span.CLIENTE, () -> assinaturaRepository.buscarParaAtualizar(usuario));
+            } finally {
+                limitador.registrarLatencia(System.nanoTime() - inicio);
+            }
+        }
+
+        // a entidade gerenciada é alterada no lugar, então o estado antigo precisa ser copiado antes
+        private static Assinatura copiar(Assinatura original) {
+            Assinatura copia = new Assinatura();
+            copia.setId(original.getId());
+            copia.setUserId(original.getUserId());
+            copia.setPlano(original.getPlano());
+            copia.setStatus(original.getStatus());
+            copia.setFimAssinatura(original.getFimAssinatura());
+            return copia;
+        }
 
-            return assinaturaRepository.save(assinatura);
+        @PreDestroy
+        void encerrar() {
+            revalidacoes.shutdownNow();
         }
 
     }
@@ -0,0 +1,5 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
+
+// desatualizado = resposta anterior servida enquanto o banco não responde
+public record StatusPremium(boolean premium, boolean desatualizado) {
+}
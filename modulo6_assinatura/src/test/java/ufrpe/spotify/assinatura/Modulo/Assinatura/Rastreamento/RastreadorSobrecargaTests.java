@@ -0,0 +1,71 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Rastreamento;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// mede o custo do rastreamento no caminho de verificarStatus (span raiz + span do repositório)
+// depende do relógio da máquina, por isso só roda com -Dgroups=benchmark
+@Tag("benchmark")
+class RastreadorSobrecargaTests {
+
+	private static final int REQUISICOES = 200_000;
+	// ida ao pooler remoto mais rápida que observamos; o rastreamento precisa custar menos de 2% disso
+	private static final long IDA_AO_BANCO_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final Map<Integer, Boolean> assinaturas = new HashMap<>();
+
+	@Test
+	void sobrecargaPorRequisicaoFicaAbaixoDeDoisPorCento() {
+		for (int i = 0; i < 1000; i++) {
+			assinaturas.put(i, i % 3 == 0);
+		}
+		ExportadorOtlp exportador = new ExportadorOtlp("", "modulo6_assinatura", 16);
+		Rastreador rastreador = new Rastreador(exportador, 0.01, 500);
+
+		// aquecimento do JIT nos dois caminhos
+		semRastreamento(REQUISICOES);
+		comRastreamento(rastreador, REQUISICOES);
+
+		long base = semRastreamento(REQUISICOES);
+		long rastreado = comRastreamento(rastreador, REQUISICOES);
+		long sobrecargaNanos = Math.max(0, rastreado - base) / REQUISICOES;
+
+		System.out.printf("rastreamento: %d ns por requisição (%.3f%% de uma ida de 1 ms ao banco)%n",
+				sobrecargaNanos, 100.0 * sobrecargaNanos / IDA_AO_BANCO_NANOS);
+		assertTrue(sobrecargaNanos < IDA_AO_BANCO_NANOS / 50, "sobrecarga de " + sobrecargaNanos + " ns");
+	}
+
+	private long semRastreamento(int n) {
+		int premium = 0;
+		long inicio = System.nanoTime();
+		for (int i = 0; i < n; i++) {
+			if (assinaturas.getOrDefault(i % 1000, false)) premium++;
+		}
+		long duracao = System.nanoTime() - inicio;
+		assertTrue(premium > 0);
+		return duracao;
+	}
+
+	private long comRastreamento(Rastreador rastreador, int n) {
+		int premium = 0;
+		long inicio = System.nanoTime();
+		for (int i = 0; i < n; i++) {
+			int usuario = i % 1000;
+			Span raiz = rastreador.iniciarRaiz(null, "GET /api/assinatura/status/{userID}");
+			rastreador.traceparent(raiz);
+			if (rastreador.emSpan("AssinaturaRepository.findByUserId", Span.CLIENTE, () -> assinaturas.getOrDefault(usuario, false))) premium++;
+			raiz.atributo("http.response.status_code", "200");
+			rastreador.encerrarRaiz(raiz);
+		}
+		long duracao = System.nanoTime() - inicio;
+		assertTrue(premium > 0);
+		return duracao;
+	}
+
+}
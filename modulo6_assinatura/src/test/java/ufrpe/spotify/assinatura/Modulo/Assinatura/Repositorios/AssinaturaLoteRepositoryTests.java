@@ -0,0 +1,111 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Repositorios;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Modelos.Assinatura;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// ANY(array), FOR UPDATE e ON CONFLICT são do Postgres: roda num Postgres de verdade e é pulado sem Docker
+@Testcontainers(disabledWithoutDocker = true)
+class AssinaturaLoteRepositoryTests {
+
+	@Container
+	static final PostgreSQLContainer POSTGRES = new PostgreSQLContainer("postgres:16-alpine");
+
+	private static final LocalDateTime FIM = LocalDateTime.of(2026, 11, 19, 10, 0);
+
+	private JdbcTemplate jdbcTemplate;
+	private AssinaturaLoteRepository repositorio;
+	private TransactionTemplate transacao;
+
+	@BeforeEach
+	void criarTabela() {
+		DriverManagerDataSource dataSource = conexoes();
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		repositorio = new AssinaturaLoteRepository(jdbcTemplate);
+		transacao = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+		// o mesmo esquema que o Hibernate gera para Assinatura
+		jdbcTemplate.execute("DROP TABLE IF EXISTS assinatura");
+		jdbcTemplate.execute("CREATE TABLE assinatura (id serial PRIMARY KEY, user_id integer NOT NULL UNIQUE, " +
+				"plano varchar(255), status varchar(255), fim_assinatura timestamp(6))");
+		jdbcTemplate.update("INSERT INTO assinatura (user_id, plano, status, fim_assinatura) VALUES " +
+				"(1, 'PREMIUM', 'ATIVO', '2026-11-19 10:00:00'), (2, 'FREE', 'CANCELADO', NULL), (3, NULL, NULL, NULL)");
+	}
+
+	@Test
+	void buscaEmLoteTrazSoOsUsuariosPedidos() {
+		Map<Integer, Assinatura> encontradas = porUsuario(repositorio.buscarPorUsuarios(List.of(1, 2, 99)));
+
+		assertEquals(2, encontradas.size());
+		assertEquals(Assinatura.PlanType.PREMIUM, encontradas.get(1).getPlano());
+		assertEquals(Assinatura.SubscriptionStatus.ATIVO, encontradas.get(1).getStatus());
+		assertEquals(FIM, encontradas.get(1).getFimAssinatura());
+		assertEquals(Assinatura.SubscriptionStatus.CANCELADO, encontradas.get(2).getStatus());
+		assertNull(encontradas.get(2).getFimAssinatura());
+	}
+
+	@Test
+	void buscaParaAtualizarTravaAsLinhasNaOrdemDoUsuario() {
+		JdbcTemplate outraConexao = new JdbcTemplate(conexoes());
+
+		transacao.executeWithoutResult(status -> {
+			List<Assinatura> travadas = repositorio.buscarPorUsuariosParaAtualizar(List.of(3, 1));
+			assertEquals(List.of(1, 3), travadas.stream().map(Assinatura::getUserId).toList());
+
+			// enquanto a transação está aberta, só as linhas do lote ficam travadas
+			assertThrows(DataAccessException.class,
+					() -> outraConexao.queryForList("SELECT id FROM assinatura WHERE user_id = 1 FOR UPDATE NOWAIT"));
+			assertEquals(1, outraConexao.queryForList("SELECT id FROM assinatura WHERE user_id = 2 FOR UPDATE NOWAIT").size());
+		});
+		assertEquals(1, outraConexao.queryForList("SELECT id FROM assinatura WHERE user_id = 1 FOR UPDATE NOWAIT").size());
+	}
+
+	@Test
+	void gravarInsereNovosEAtualizaExistentesSemTrocarOId() {
+		Integer idAnterior = jdbcTemplate.queryForObject("SELECT id FROM assinatura WHERE user_id = 2", Integer.class);
+
+		repositorio.gravar(List.of(premium(2), premium(4)));
+
+		Map<Integer, Assinatura> gravadas = porUsuario(repositorio.buscarPorUsuarios(List.of(2, 4)));
+		assertEquals(idAnterior, gravadas.get(2).getId());
+		for (Assinatura assinatura : gravadas.values()) {
+			assertEquals(Assinatura.PlanType.PREMIUM, assinatura.getPlano());
+			assertEquals(Assinatura.SubscriptionStatus.ATIVO, assinatura.getStatus());
+			assertEquals(FIM, assinatura.getFimAssinatura());
+		}
+		assertEquals(4, jdbcTemplate.queryForObject("SELECT count(*) FROM assinatura", Integer.class));
+	}
+
+	private static DriverManagerDataSource conexoes() {
+		return new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+	}
+
+	private static Map<Integer, Assinatura> porUsuario(List<Assinatura> assinaturas) {
+		return assinaturas.stream().collect(Collectors.toMap(Assinatura::getUserId, Function.identity()));
+	}
+
+	private static Assinatura premium(int usuario) {
+		Assinatura assinatura = new Assinatura();
+		assinatura.setUserId(usuario);
+		assinatura.setPlano(Assinatura.PlanType.PREMIUM);
+		assinatura.setStatus(Assinatura.SubscriptionStatus.ATIVO);
+		assinatura.setFimAssinatura(FIM);
+		return assinatura;
+	}
+}
@@ -0,0 +1,87 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Repositorios;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// trava consultiva, ON CONFLICT e to_char são do Postgres: roda num Postgres de verdade e é pulado sem Docker
+@Testcontainers(disabledWithoutDocker = true)
+class ContadorAssinaturaRepositoryTests {
+
+	@Container
+	static final PostgreSQLContainer POSTGRES = new PostgreSQLContainer("postgres:16-alpine");
+
+	private static final LocalDate HOJE = LocalDate.of(2026, 10, 19);
+
+	private JdbcTemplate jdbcTemplate;
+	private ContadorAssinaturaRepository repositorio;
+	private TransactionTemplate transacao;
+
+	@BeforeEach
+	void criarTabelas() {
+		DriverManagerDataSource dataSource = conexoes();
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		repositorio = new ContadorAssinaturaRepository(jdbcTemplate);
+		transacao = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+		// o mesmo esquema que o Hibernate gera para Assinatura e ContadorAssinatura
+		jdbcTemplate.execute("DROP TABLE IF EXISTS assinatura");
+		jdbcTemplate.execute("DROP TABLE IF EXISTS contador_assinatura");
+		jdbcTemplate.execute("CREATE TABLE assinatura (id serial PRIMARY KEY, user_id integer NOT NULL UNIQUE, " +
+				"plano varchar(255), status varchar(255), fim_assinatura timestamp(6))");
+		jdbcTemplate.execute("CREATE TABLE contador_assinatura (chave varchar(40) PRIMARY KEY, total bigint NOT NULL)");
+		jdbcTemplate.update("INSERT INTO assinatura (user_id, plano, status, fim_assinatura) VALUES " +
+				"(1, 'PREMIUM', 'ATIVO', '2026-10-19 08:00:00'), (2, 'PREMIUM', 'ATIVO', '2026-10-18 23:00:00'), " +
+				"(3, 'PREMIUM', 'ATIVO', NULL)");
+	}
+
+	@Test
+	void fotografiaNaoContaDiasQueJaPassaram() {
+		repositorio.incrementar(Map.of("plano:PREMIUM", 2L, "expira:2026-10-18", 1L));
+
+		ContadorAssinaturaRepository.Fotografia fotografia = repositorio.fotografar(HOJE);
+
+		assertEquals(Map.of("plano:PREMIUM", 2L, "expira:2026-10-18", 1L), fotografia.contadores());
+		assertEquals(Map.of("plano:PREMIUM", 3L, "status:ATIVO", 3L, "expira:2026-10-19", 1L, "expira:sem-fim", 1L),
+				fotografia.recalculados());
+	}
+
+	@Test
+	void removeSoAsExpiracoesAnterioresAHoje() {
+		repositorio.incrementar(Map.of("expira:2026-10-18", -1L, "expira:2026-09-30", 4L, "expira:2026-10-19", 1L,
+				"expira:sem-fim", 1L, "plano:PREMIUM", 3L));
+
+		repositorio.removerExpiracoesAntesDe(HOJE);
+
+		assertEquals(Map.of("expira:2026-10-19", 1L, "expira:sem-fim", 1L, "plano:PREMIUM", 3L), repositorio.listar());
+	}
+
+	@Test
+	void soUmaTransacaoPorVezConsegueATravaDeReconciliacao() {
+		DriverManagerDataSource outraConexao = conexoes();
+		TransactionTemplate outraTransacao = new TransactionTemplate(new DataSourceTransactionManager(outraConexao));
+		ContadorAssinaturaRepository outraReplica = new ContadorAssinaturaRepository(new JdbcTemplate(outraConexao));
+
+		transacao.executeWithoutResult(status -> {
+			assertTrue(repositorio.travarReconciliacao());
+			assertEquals(false, outraTransacao.execute(s -> outraReplica.travarReconciliacao()));
+		});
+		// liberada no commit
+		assertEquals(true, outraTransacao.execute(s -> outraReplica.travarReconciliacao()));
+	}
+
+	private static DriverManagerDataSource conexoes() {
+		return new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+	}
+}
@@ -0,0 +1,142 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
+
+import org.junit.jupiter.api.Test;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Modelos.Assinatura;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Repositorios.AssinaturaLoteRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CarregadorAssinaturasTests {
+
+	@Test
+	void buscasConcorrentesViramPoucasConsultas() throws Exception {
+		AssinaturaLoteRepository loteRepositorio = mock(AssinaturaLoteRepository.class);
+		AtomicInteger consultas = new AtomicInteger();
+		when(loteRepositorio.buscarPorUsuarios(any())).thenAnswer(invocacao -> {
+			consultas.incrementAndGet();
+			Thread.sleep(20); // ida ao banco
+			List<Assinatura> encontradas = new ArrayList<>();
+			for (Integer usuario : invocacao.<Collection<Integer>>getArgument(0)) {
+				// só usuários pares têm assinatura
+				if (usuario % 2 == 0) {
+					Assinatura assinatura = new Assinatura();
+					assinatura.setUserId(usuario);
+					encontradas.add(assinatura);
+				}
+			}
+			return encontradas;
+		});
+		CarregadorAssinaturas carregador = new CarregadorAssinaturas(loteRepositorio,
+				new LimitadorConcorrencia(20, 2, 200, 150, 0.9), 5, 128, 10);
+
+		try {
+			List<CompletableFuture<Optional<Assinatura>>> respostas = new ArrayList<>();
+			for (int usuario = 0; usuario < 300; usuario++) {
+				respostas.add(carregador.carregar(usuario));
+			}
+
+			for (int usuario = 0; usuario < 300; usuario++) {
+				Optional<Assinatura> resposta = respostas.get(usuario).get(2, TimeUnit.SECONDS);
+				assertEquals(usuario % 2 == 0, resposta.isPresent());
+				if (resposta.isPresent()) {
+					assertEquals(usuario, resposta.get().getUserId());
+				}
+			}
+			// 300 buscas, lotes de até 128: três consultas em vez de trezentas
+			assertTrue(consultas.get() <= 5, consultas.get() + " consultas");
+		} finally {
+			carregador.encerrar();
+		}
+	}
+
+	@Test
+	void falhaDoBancoChegaATodosDoLote() {
+		AssinaturaLoteRepository loteRepositorio = mock(AssinaturaLoteRepository.class);
+		when(loteRepositorio.buscarPorUsuarios(any())).thenThrow(new IllegalStateException("banco fora do ar"));
+		CarregadorAssinaturas carregador = new CarregadorAssinaturas(loteRepositorio,
+				new LimitadorConcorrencia(20, 2, 200, 150, 0.9), 5, 128, 10);
+
+		try {
+			CompletableFuture<Optional<Assinatura>> a = carregador.carregar(1);
+			CompletableFuture<Optional<Assinatura>> b = carregador.carregar(2);
+			assertThrows(Exception.class, () -> a.get(2, TimeUnit.SECONDS));
+			assertThrows(Exception.class, () -> b.get(2, TimeUnit.SECONDS));
+		} finally {
+			carregador.encerrar();
+		}
+	}
+
+	@Test
+	void pedidoCanceladoNaoEntraNaConsulta() throws Exception {
+		AssinaturaLoteRepository loteRepositorio = mock(AssinaturaLoteRepository.class);
+		CountDownLatch liberarBanco = new CountDownLatch(1);
+		List<Integer> consultados = new ArrayList<>();
+		when(loteRepositorio.buscarPorUsuarios(any())).thenAnswer(invocacao -> {
+			synchronized (consultados) {
+				consultados.addAll(invocacao.<Collection<Integer>>getArgument(0));
+			}
+			liberarBanco.await(2, TimeUnit.SECONDS);
+			return List.of();
+		});
+		// uma consulta por vez: o segundo pedido espera na fila enquanto o primeiro ocupa o banco
+		CarregadorAssinaturas carregador = new CarregadorAssinaturas(loteRepositorio,
+				new LimitadorConcorrencia(20, 2, 200, 150, 0.9), 1, 128, 1);
+
+		try {
+			CompletableFuture<Optional<Assinatura>> primeiro = carregador.carregar(1);
+			verify(loteRepositorio, timeout(2000)).buscarPorUsuarios(any());
+			CompletableFuture<Optional<Assinatura>> desistente = carregador.carregar(2);
+			desistente.cancel(true);
+			liberarBanco.countDown();
+
+			assertEquals(Optional.empty(), primeiro.get(2, TimeUnit.SECONDS));
+			assertEquals(Optional.empty(), carregador.carregar(3).get(2, TimeUnit.SECONDS));
+			synchronized (consultados) {
+				assertFalse(consultados.contains(2), consultados.toString());
+				assertTrue(consultados.contains(3), consultados.toString());
+			}
+		} finally {
+			carregador.encerrar();
+		}
+	}
+
+	@Test
+	void lotesNoBancoNaoPassamDoLimite() throws Exception {
+		AssinaturaLoteRepository loteRepositorio = mock(AssinaturaLoteRepository.class);
+		AtomicInteger emVoo = new AtomicInteger();
+		AtomicInteger maximo = new AtomicInteger();
+		when(loteRepositorio.buscarPorUsuarios(any())).thenAnswer(invocacao -> {
+			maximo.accumulateAndGet(emVoo.incrementAndGet(), Math::max);
+			Thread.sleep(10); // ida ao banco
+			emVoo.decrementAndGet();
+			return List.of();
+		});
+		CarregadorAssinaturas carregador = new CarregadorAssinaturas(loteRepositorio,
+				new LimitadorConcorrencia(20, 2, 200, 150, 0.9), 0, 4, 2);
+
+		try {
+			List<CompletableFuture<Optional<Assinatura>>> respostas = new ArrayList<>();
+			for (int usuario = 0; usuario < 200; usuario++) {
+				respostas.add(carregador.carregar(usuario));
+			}
+			for (CompletableFuture<Optional<Assinatura>> resposta : respostas) {
+				resposta.get(5, TimeUnit.SECONDS);
+			}
+			assertTrue(maximo.get() <= 2, maximo.get() + " consultas simultâneas");
+		} finally {
+			carregador.encerrar();
+		}
+	}
+
+}
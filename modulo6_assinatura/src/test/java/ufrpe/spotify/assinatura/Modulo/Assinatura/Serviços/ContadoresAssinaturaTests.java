@@ -0,0 +1,121 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
+
+import org.junit.jupiter.api.Test;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Modelos.Assinatura;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Repositorios.ContadorAssinaturaRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ContadoresAssinaturaTests {
+
+	@Test
+	void novaAssinaturaPremiumSomaPlanoStatusEDiaDeExpiracao() {
+		Assinatura nova = assinatura(Assinatura.PlanType.PREMIUM, Assinatura.SubscriptionStatus.ATIVO, LocalDateTime.of(2026, 11, 19, 10, 0));
+
+		assertEquals(Map.of("plano:PREMIUM", 1L, "status:ATIVO", 1L, "expira:2026-11-19", 1L),
+				ContadoresAssinatura.diferenca(null, nova));
+	}
+
+	@Test
+	void renovacaoSoMoveODiaDeExpiracao() {
+		Assinatura antes = assinatura(Assinatura.PlanType.PREMIUM, Assinatura.SubscriptionStatus.ATIVO, LocalDateTime.of(2026, 10, 20, 8, 0));
+		Assinatura depois = assinatura(Assinatura.PlanType.PREMIUM, Assinatura.SubscriptionStatus.ATIVO, LocalDateTime.of(2026, 11, 20, 8, 0));
+
+		assertEquals(Map.of("expira:2026-10-20", -1L, "expira:2026-11-20", 1L),
+				ContadoresAssinatura.diferenca(antes, depois));
+	}
+
+	@Test
+	void assinaturaCanceladaNaoEntraNosDiasDeExpiracao() {
+		Assinatura antes = assinatura(Assinatura.PlanType.PREMIUM, Assinatura.SubscriptionStatus.CANCELADO, LocalDateTime.of(2026, 10, 20, 8, 0));
+		Assinatura depois = assinatura(Assinatura.PlanType.PREMIUM, Assinatura.SubscriptionStatus.ATIVO, null);
+
+		assertEquals(Map.of("status:CANCELADO", -1L, "status:ATIVO", 1L, "expira:sem-fim", 1L),
+				ContadoresAssinatura.diferenca(antes, depois));
+	}
+
+	@Test
+	void estatisticasIgnoramDiasQueJaPassaram() {
+		ContadoresAssinatura.Estatisticas estatisticas = ContadoresAssinatura.estatisticas(Map.of(
+				"plano:PREMIUM", 10L,
+				"plano:FREE", 4L,
+				"status:ATIVO", 12L,
+				"expira:sem-fim", 2L,
+				"expira:2026-10-18", 3L,
+				"expira:2026-10-19", 1L,
+				"expira:2026-10-25", 2L,
+				"expira:2026-11-30", 2L), LocalDate.of(2026, 10, 19));
+
+		assertEquals(Map.of("PREMIUM", 10L, "FREE", 4L), estatisticas.porPlano());
+		assertEquals(7, estatisticas.premiumAtivos());
+		assertEquals(1, estatisticas.expiramHoje());
+		assertEquals(3, estatisticas.expiramEm7Dias());
+		assertFalse(estatisticas.porDiaExpiracao().containsKey("2026-10-18"));
+	}
+
+	@Test
+	void correcaoEhADiferencaEntreContagemEContadores() {
+		LocalDate hoje = LocalDate.of(2026, 10, 19);
+		Map<String, Long> contadores = Map.of("plano:PREMIUM", 10L, "status:ATIVO", 9L, "expira:2026-10-20", 2L,
+				"expira:2026-10-01", 2L);
+		Map<String, Long> recalculados = Map.of("plano:PREMIUM", 10L, "status:ATIVO", 11L, "expira:sem-fim", 1L,
+				"expira:2026-10-19", 3L);
+
+		// chave só nos contadores vira desconto; dia que já passou fica de fora, porque a linha vai ser apagada
+		assertEquals(Map.of("status:ATIVO", 2L, "expira:2026-10-20", -2L, "expira:sem-fim", 1L, "expira:2026-10-19", 3L),
+				ContadoresAssinatura.correcao(contadores, recalculados, hoje));
+	}
+
+	@Test
+	void reconciliacaoAplicaSoACorrecaoComoIncrementoEApagaDiasPassados() {
+		ContadorAssinaturaRepository repositorio = mock(ContadorAssinaturaRepository.class);
+		when(repositorio.travarReconciliacao()).thenReturn(true);
+		when(repositorio.fotografar(any())).thenReturn(new ContadorAssinaturaRepository.Fotografia(
+				Map.of("plano:PREMIUM", 4L), Map.of("plano:PREMIUM", 5L)));
+
+		new ContadoresAssinatura(repositorio).reconciliar();
+
+		verify(repositorio).incrementar(Map.of("plano:PREMIUM", 1L));
+		verify(repositorio).removerExpiracoesAntesDe(LocalDate.now());
+		verify(repositorio).removerZerados();
+	}
+
+	@Test
+	void reconciliacaoSemDesvioNaoEscreveContadores() {
+		ContadorAssinaturaRepository repositorio = mock(ContadorAssinaturaRepository.class);
+		when(repositorio.travarReconciliacao()).thenReturn(true);
+		when(repositorio.fotografar(any())).thenReturn(new ContadorAssinaturaRepository.Fotografia(
+				Map.of("plano:PREMIUM", 4L), Map.of("plano:PREMIUM", 4L)));
+
+		new ContadoresAssinatura(repositorio).reconciliar();
+
+		verify(repositorio, never()).incrementar(any());
+	}
+
+	@Test
+	void reconciliacaoEmOutraReplicaPulaARodada() {
+		ContadorAssinaturaRepository repositorio = mock(ContadorAssinaturaRepository.class);
+		when(repositorio.travarReconciliacao()).thenReturn(false);
+
+		new ContadoresAssinatura(repositorio).reconciliar();
+
+		verify(repositorio, never()).fotografar(any());
+		verify(repositorio, never()).incrementar(any());
+		verify(repositorio, never()).removerExpiracoesAntesDe(any());
+	}
+
+	private static Assinatura assinatura(Assinatura.PlanType plano, Assinatura.SubscriptionStatus status, LocalDateTime fim) {
+		Assinatura assinatura = new Assinatura();
+		assinatura.setUserId(1);
+		assinatura.setPlano(plano);
+		assinatura.setStatus(status);
+		assinatura.setFimAssinatura(fim);
+		return assinatura;
+	}
+}
@@ -0,0 +1,158 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FilaUpgradeDuravelTests {
+
+	@TempDir
+	Path pasta;
+
+	@Test
+	void pedidosNaoAplicadosVoltamDepoisDeReiniciar() throws Exception {
+		FilaUpgradeDuravel fila = abrir();
+		long primeira = fila.enfileirar(10);
+		long segunda = fila.enfileirar(20);
+		long terceira = fila.enfileirar(30);
+		fila.confirmarAte(primeira);
+		fila.encerrar();
+
+		FilaUpgradeDuravel reaberta = abrir();
+		assertEquals(FilaUpgradeDuravel.Estado.APLICADA, reaberta.estado(primeira));
+		assertEquals(FilaUpgradeDuravel.Estado.PENDENTE, reaberta.estado(terceira));
+		assertEquals(List.of(new FilaUpgradeDuravel.Upgrade(segunda, 20), new FilaUpgradeDuravel.Upgrade(terceira, 30)),
+				reaberta.proximoLote(10, 100));
+		assertEquals(terceira + 1, reaberta.enfileirar(40));
+		reaberta.encerrar();
+	}
+
+	@Test
+	void finalIncompletoDoLogEhDescartado() throws Exception {
+		FilaUpgradeDuravel fila = abrir();
+		long primeira = fila.enfileirar(10);
+		fila.encerrar();
+		// queda no meio da gravação do próximo registro
+		Files.write(pasta.resolve("upgrades.log"), new byte[]{0, 0, 0, 0, 0, 0, 0, 2, 0, 0}, StandardOpenOption.APPEND);
+
+		FilaUpgradeDuravel reaberta = abrir();
+		assertEquals(List.of(new FilaUpgradeDuravel.Upgrade(primeira, 10)), reaberta.proximoLote(10, 100));
+		assertEquals(FilaUpgradeDuravel.TAMANHO_REGISTRO, Files.size(pasta.resolve("upgrades.log")));
+		assertEquals(primeira + 1, reaberta.enfileirar(11));
+		reaberta.encerrar();
+	}
+
+	@Test
+	void gravacoesConcorrentesRecebemNumerosDistintosEmOrdem() throws Exception {
+		FilaUpgradeDuravel fila = abrir();
+		List<Future<Long>> operacoes = new ArrayList<>();
+		try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < 2000; i++) {
+				int usuario = i;
+				operacoes.add(clientes.submit(() -> fila.enfileirar(usuario)));
+			}
+		}
+		assertEquals(2000, operacoes.stream().map(f -> f.resultNow()).distinct().count());
+
+		List<FilaUpgradeDuravel.Upgrade> lote = fila.proximoLote(5000, 100);
+		assertEquals(2000, lote.size());
+		for (int i = 1; i < lote.size(); i++) {
+			assertEquals(lote.get(i - 1).operacao() + 1, lote.get(i).operacao());
+		}
+		assertEquals(2000, fila.pendentes());
+		fila.encerrar();
+	}
+
+	@Test
+	void logEhTruncadoQuandoTudoFoiAplicado() throws Exception {
+		FilaUpgradeDuravel fila = new FilaUpgradeDuravel(pasta.toString(), "", FilaUpgradeDuravel.TAMANHO_REGISTRO, 100, 100);
+		fila.enfileirar(1);
+		long ultima = fila.enfileirar(2);
+		fila.confirmarAte(ultima);
+		fila.enfileirar(3);
+
+		assertEquals(FilaUpgradeDuravel.TAMANHO_REGISTRO, Files.size(pasta.resolve("upgrades.log")));
+		assertEquals(FilaUpgradeDuravel.Estado.APLICADA, fila.estado(ultima));
+		fila.encerrar();
+
+		FilaUpgradeDuravel reaberta = abrir();
+		assertEquals(List.of(new FilaUpgradeDuravel.Upgrade(ultima + 1, 3)), reaberta.proximoLote(10, 100));
+		reaberta.encerrar();
+	}
+
+	@Test
+	void filaCheiaRecusaNovosPedidos() throws Exception {
+		FilaUpgradeDuravel fila = new FilaUpgradeDuravel(pasta.toString(), "", 1 << 20, 2, 100);
+		fila.enfileirar(1);
+		fila.enfileirar(2);
+		assertThrows(AssinaturaIndisponivelException.class, () -> fila.enfileirar(3));
+		fila.encerrar();
+	}
+
+	@Test
+	void rejeitadasForaDaRetencaoSaemJuntoComACompactacaoDoLog() throws Exception {
+		// retenção de duas operações e log compactado a cada dois registros
+		FilaUpgradeDuravel fila = new FilaUpgradeDuravel(pasta.toString(), "", FilaUpgradeDuravel.TAMANHO_REGISTRO, 1, 2);
+		for (int usuario = 1; usuario <= 4; usuario++) {
+			long operacao = fila.enfileirar(usuario);
+			fila.rejeitar(List.of(new FilaUpgradeDuravel.Upgrade(operacao, usuario)));
+			fila.confirmarAte(operacao);
+		}
+		// este pedido compacta o log antes de ser gravado
+		long ultima = fila.enfileirar(5);
+
+		assertEquals(2 * FilaUpgradeDuravel.TAMANHO_REGISTRO, Files.size(pasta.resolve("upgrades.rejeitados")));
+		assertEquals(FilaUpgradeDuravel.Estado.DESCONHECIDA, fila.estado(ultima - 2));
+		assertEquals(FilaUpgradeDuravel.Estado.FALHOU, fila.estado(ultima - 1));
+		assertEquals(FilaUpgradeDuravel.Estado.PENDENTE, fila.estado(ultima));
+		fila.encerrar();
+
+		FilaUpgradeDuravel reaberta = new FilaUpgradeDuravel(pasta.toString(), "", FilaUpgradeDuravel.TAMANHO_REGISTRO, 1, 2);
+		assertEquals(FilaUpgradeDuravel.Estado.FALHOU, reaberta.estado(ultima - 1));
+		assertEquals(FilaUpgradeDuravel.Estado.DESCONHECIDA, reaberta.estado(ultima - 2));
+		reaberta.encerrar();
+	}
+
+	@Test
+	void idDoLogPertenceAPasta() throws Exception {
+		FilaUpgradeDuravel fila = abrir();
+		String id = fila.idLog();
+		assertTrue(id.matches("[0-9a-f]{16}"));
+		fila.encerrar();
+
+		FilaUpgradeDuravel reaberta = abrir();
+		assertEquals(id, reaberta.idLog());
+		reaberta.encerrar();
+
+		// a numeração desta pasta não pode ser apresentada como a de outra réplica
+		assertThrows(IllegalStateException.class,
+				() -> new FilaUpgradeDuravel(pasta.toString(), "replica-2", 1 << 20, 1_000_000, 10_000_000));
+	}
+
+	@Test
+	void idDoLogConfiguradoEhUsadoNaPrimeiraSubida() throws Exception {
+		FilaUpgradeDuravel fila = new FilaUpgradeDuravel(pasta.toString(), "replica-1", 1 << 20, 1_000_000, 10_000_000);
+		assertEquals("replica-1", fila.idLog());
+		fila.encerrar();
+
+		FilaUpgradeDuravel reaberta = abrir();
+		assertEquals("replica-1", reaberta.idLog());
+		reaberta.encerrar();
+		assertThrows(IllegalArgumentException.class,
+				() -> new FilaUpgradeDuravel(pasta.resolve("outra").toString(), "../x", 1 << 20, 1_000_000, 10_000_000));
+	}
+
+	private FilaUpgradeDuravel abrir() throws Exception {
+		return new FilaUpgradeDuravel(pasta.toString(), "", 1 << 20, 1_000_000, 10_000_000);
+	}
+}
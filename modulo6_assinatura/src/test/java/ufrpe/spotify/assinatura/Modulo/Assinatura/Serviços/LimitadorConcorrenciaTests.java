@@ -0,0 +1,45 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
+
+import org.junit.jupiter.api.Test;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços.LimitadorConcorrencia.Prioridade;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LimitadorConcorrenciaTests {
+
+	@Test
+	void leiturasSaoDescartadasAntesDeEscritas() {
+		LimitadorConcorrencia limitador = new LimitadorConcorrencia(10, 2, 100, 150, 0.9);
+
+		for (int i = 0; i < 7; i++) {
+			assertTrue(limitador.tentarAdquirir(Prioridade.LEITURA));
+		}
+		assertFalse(limitador.tentarAdquirir(Prioridade.LEITURA));
+		assertTrue(limitador.tentarAdquirir(Prioridade.ESCRITA));
+		assertTrue(limitador.tentarAdquirir(Prioridade.ESCRITA));
+		assertFalse(limitador.tentarAdquirir(Prioridade.ESCRITA));
+		assertTrue(limitador.tentarAdquirir(Prioridade.INTERNA));
+		assertFalse(limitador.tentarAdquirir(Prioridade.INTERNA));
+
+		limitador.liberar();
+		assertTrue(limitador.tentarAdquirir(Prioridade.INTERNA));
+	}
+
+	@Test
+	void limiteCaiUmaVezPorJanelaQuandoBancoFicaLento() {
+		LimitadorConcorrencia limitador = new LimitadorConcorrencia(100, 2, 200, 150, 0.5);
+
+		limitador.registrarLatencia(TimeUnit.MILLISECONDS.toNanos(1));
+		assertEquals(100, limitador.getLimite());
+
+		limitador.registrarLatencia(TimeUnit.MILLISECONDS.toNanos(400));
+		assertEquals(50, limitador.getLimite());
+
+		// outras requisições lentas da mesma janela não derrubam o limite de novo
+		limitador.registrarLatencia(TimeUnit.MILLISECONDS.toNanos(400));
+		assertEquals(50, limitador.getLimite());
+	}
+
+}
@@ -0,0 +1,124 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+import java.nio.file.Path;
+import java.sql.SQLTransientConnectionException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProcessadorUpgradesTests {
+
+	@TempDir
+	Path pasta;
+
+	private FilaUpgradeDuravel fila;
+	private ServiçoAssinatura servico;
+	private ProcessadorUpgrades processador;
+
+	@BeforeEach
+	void criarProcessador() throws Exception {
+		fila = abrirFila();
+		servico = mock(ServiçoAssinatura.class);
+		processador = new ProcessadorUpgrades(fila, servico, 500, 3, 1);
+	}
+
+	@AfterEach
+	void encerrar() {
+		processador.stop();
+		fila.encerrar();
+	}
+
+	@Test
+	void loteAplicadoAvancaOCheckpoint() throws Exception {
+		long primeira = fila.enfileirar(1);
+		fila.enfileirar(2);
+		long ultima = fila.enfileirar(1);
+
+		processador.start();
+
+		esperarEstado(ultima, FilaUpgradeDuravel.Estado.APLICADA);
+		assertEquals(FilaUpgradeDuravel.Estado.APLICADA, fila.estado(primeira));
+		// o pedido repetido do usuário 1 vira um só
+		verify(servico).upgradePremiumEmLote(Set.of(1, 2));
+	}
+
+	@Test
+	void bancoForaDoArMantemOLotePendente() throws Exception {
+		doThrow(new DataAccessResourceFailureException("banco fora do ar")).when(servico).upgradePremiumEmLote(any());
+		long operacao = fila.enfileirar(7);
+
+		processador.start();
+
+		// bem mais tentativas que tentativas-maximas: falha de conexão nunca rejeita o pedido
+		verify(servico, timeout(5000).atLeast(6)).upgradePremiumEmLote(any());
+		assertEquals(FilaUpgradeDuravel.Estado.PENDENTE, fila.estado(operacao));
+
+		processador.stop();
+		fila.encerrar();
+		fila = abrirFila();
+		assertEquals(List.of(new FilaUpgradeDuravel.Upgrade(operacao, 7)), fila.proximoLote(10, 100));
+	}
+
+	@Test
+	void pedidoQueNuncaPassaEhRejeitadoSemTravarOsOutros() throws Exception {
+		doAnswer(invocacao -> {
+			if (invocacao.<Collection<Integer>>getArgument(0).contains(13)) {
+				throw new DataIntegrityViolationException("violação de restrição");
+			}
+			return null;
+		}).when(servico).upgradePremiumEmLote(any());
+		long antes = fila.enfileirar(11);
+		long envenenada = fila.enfileirar(13);
+		long depois = fila.enfileirar(12);
+
+		processador.start();
+
+		esperarEstado(depois, FilaUpgradeDuravel.Estado.APLICADA);
+		assertEquals(FilaUpgradeDuravel.Estado.APLICADA, fila.estado(antes));
+		assertEquals(FilaUpgradeDuravel.Estado.FALHOU, fila.estado(envenenada));
+		verify(servico, times(3)).upgradePremiumEmLote(Set.of(11, 13, 12));
+		verify(servico).upgradePremiumEmLote(List.of(11));
+		verify(servico).upgradePremiumEmLote(List.of(12));
+
+		// a rejeição sobrevive a uma reinicialização e o pedido não volta para a fila
+		processador.stop();
+		fila.encerrar();
+		fila = abrirFila();
+		assertEquals(FilaUpgradeDuravel.Estado.FALHOU, fila.estado(envenenada));
+		assertEquals(FilaUpgradeDuravel.Estado.APLICADA, fila.estado(depois));
+		assertTrue(fila.proximoLote(10, 100).isEmpty());
+	}
+
+	@Test
+	void soFalhasDeConexaoETravaSaoTransitorias() {
+		assertTrue(ProcessadorUpgrades.transitoria(new PessimisticLockingFailureException("deadlock")));
+		assertTrue(ProcessadorUpgrades.transitoria(new RuntimeException(new SQLTransientConnectionException("pool esgotado"))));
+		assertFalse(ProcessadorUpgrades.transitoria(new DataIntegrityViolationException("violação de restrição")));
+		assertFalse(ProcessadorUpgrades.transitoria(new IllegalStateException("bug")));
+	}
+
+	private void esperarEstado(long operacao, FilaUpgradeDuravel.Estado esperado) throws InterruptedException {
+		long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (fila.estado(operacao) != esperado && System.nanoTime() < limite) {
+			Thread.sleep(10);
+		}
+		assertEquals(esperado, fila.estado(operacao));
+	}
+
+	private FilaUpgradeDuravel abrirFila() throws Exception {
+		return new FilaUpgradeDuravel(pasta.toString(), "", 1 << 20, 1_000_000, 10_000_000);
+	}
+}
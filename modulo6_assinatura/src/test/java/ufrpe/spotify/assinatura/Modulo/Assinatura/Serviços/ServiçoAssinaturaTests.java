@@ -0,0 +1,210 @@
+package ufrpe.spotify.assinatura.Modulo.Assinatura.Serviços;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Modelos.Assinatura;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Rastreamento.ExportadorOtlp;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Rastreamento.Rastreador;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Repositorios.AssinaturaLoteRepository;
+import ufrpe.spotify.assinatura.Modulo.Assinatura.Repositorios.AssinaturaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ServiçoAssinaturaTests {
+
+	private AssinaturaRepository repositorio;
+	private AssinaturaLoteRepository loteRepositorio;
+	private DisjuntorCircuito disjuntor;
+	private CarregadorAssinaturas carregador;
+	private ContadoresAssinatura contadores;
+	private ServiçoAssinatura servico;
+
+	@BeforeEach
+	void criarServico() {
+		repositorio = mock(AssinaturaRepository.class);
+		loteRepositorio = mock(AssinaturaLoteRepository.class);
+		disjuntor = new DisjuntorCircuito(2, 60_000);
+		LimitadorConcorrencia limitador = new LimitadorConcorrencia(20, 2, 200, 150, 0.9);
+		carregador = new CarregadorAssinaturas(loteRepositorio, limitador, 2, 128, 10);
+		contadores = mock(ContadoresAssinatura.class);
+		servico = new ServiçoAssinatura(repositorio, loteRepositorio, limitador,
+				new Rastreador(new ExportadorOtlp("", "teste", 16), 0.0, 500), disjuntor, carregador, contadores, 100, 1000);
+	}
+
+	@AfterEach
+	void encerrarServico() {
+		servico.encerrar();
+		carregador.encerrar();
+	}
+
+	@Test
+	void bancoLentoServeUltimaRespostaMarcadaComoDesatualizada() {
+		when(loteRepositorio.buscarPorUsuarios(any())).thenReturn(List.of(premium(7)));
+		assertEquals(new StatusPremium(true, false), servico.consultarPremium(7));
+
+		bancoTravado();
+		long inicio = System.nanoTime();
+		StatusPremium status = servico.consultarPremium(7);
+		long duracaoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+
+		assertEquals(new StatusPremium(true, true), status);
+		assertTrue(duracaoMs < 1000, "esperou " + duracaoMs + " ms");
+	}
+
+	@Test
+	void disjuntorAbertoNaoConsultaOBanco() {
+		when(loteRepositorio.buscarPorUsuarios(any())).thenReturn(List.of(premium(7)));
+		servico.consultarPremium(7);
+
+		bancoTravado();
+		servico.consultarPremium(7);
+		servico.consultarPremium(7);
+		assertEquals(DisjuntorCircuito.Estado.ABERTO, disjuntor.getEstado());
+
+		clearInvocations(loteRepositorio);
+		for (int i = 0; i < 100; i++) {
+			assertEquals(new StatusPremium(true, true), servico.consultarPremium(7));
+		}
+		verify(loteRepositorio, never()).buscarPorUsuarios(any());
+	}
+
+	@Test
+	void semRespostaAnteriorFalhaRapido() {
+		bancoTravado();
+		assertThrows(AssinaturaIndisponivelException.class, () -> servico.consultarPremium(8));
+	}
+
+	@Test
+	void leituraQueEstourouOTempoEhCancelada() {
+		CompletableFuture<Optional<Assinatura>> pendente = new CompletableFuture<>();
+		CarregadorAssinaturas carregadorTravado = mock(CarregadorAssinaturas.class);
+		when(carregadorTravado.carregar(5)).thenReturn(pendente);
+		ServiçoAssinatura comCarregadorTravado = new ServiçoAssinatura(repositorio, loteRepositorio,
+				new LimitadorConcorrencia(20, 2, 200, 150, 0.9), new Rastreador(new ExportadorOtlp("", "teste", 16), 0.0, 500),
+				new DisjuntorCircuito(2, 60_000), carregadorTravado, contadores, 50, 1000);
+
+		assertThrows(AssinaturaIndisponivelException.class, () -> comCarregadorTravado.consultarPremium(5));
+		assertTrue(pendente.isCancelled());
+		comCarregadorTravado.encerrar();
+	}
+
+	@Test
+	void upgradeAtualizaRespostaGuardada() {
+		when(loteRepositorio.buscarPorUsuarios(any())).thenReturn(List.of());
+		when(repositorio.buscarParaAtualizar(9)).thenReturn(Optional.empty());
+		when(repositorio.save(any())).thenAnswer(invocacao -> invocacao.getArgument(0));
+		assertFalse(servico.consultarPremium(9).premium());
+
+		Assinatura salva = servico.upgradePremium(9);
+		verify(contadores).registrarMudanca(null, salva);
+		bancoTravado();
+		assertEquals(new StatusPremium(true, true), servico.consultarPremium(9));
+	}
+
+	@Test
+	void upgradeSoViraRespostaGuardadaDepoisDoCommit() {
+		when(repositorio.buscarParaAtualizar(anyInt())).thenReturn(Optional.empty());
+		when(repositorio.save(any())).thenAnswer(invocacao -> invocacao.getArgument(0));
+		bancoTravado();
+
+		// simula a transação do @Transactional: as sincronizações ficam registradas até o commit
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			servico.upgradePremium(16);
+			servico.upgradePremiumEmLote(List.of(17));
+			assertThrows(AssinaturaIndisponivelException.class, () -> servico.consultarPremium(16));
+			assertThrows(AssinaturaIndisponivelException.class, () -> servico.consultarPremium(17));
+
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertEquals(new StatusPremium(true, true), servico.consultarPremium(16));
+		assertEquals(new StatusPremium(true, true), servico.consultarPremium(17));
+	}
+
+	@Test
+	void upgradeDesfeitoNaoViraRespostaGuardada() {
+		when(repositorio.buscarParaAtualizar(18)).thenReturn(Optional.empty());
+		when(repositorio.save(any())).thenAnswer(invocacao -> invocacao.getArgument(0));
+		bancoTravado();
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			servico.upgradePremium(18);
+			TransactionSynchronizationManager.getSynchronizations()
+					.forEach(sincronizacao -> sincronizacao.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertThrows(AssinaturaIndisponivelException.class, () -> servico.consultarPremium(18));
+	}
+
+	@Test
+	void upgradeDeAssinaturaExistenteDescontaEstadoAntigo() {
+		Assinatura existente = premium(10);
+		existente.setStatus(Assinatura.SubscriptionStatus.CANCELADO);
+		when(repositorio.buscarParaAtualizar(10)).thenReturn(Optional.of(existente));
+		when(repositorio.save(any())).thenAnswer(invocacao -> invocacao.getArgument(0));
+
+		servico.upgradePremium(10);
+
+		verify(contadores).registrarMudanca(
+				argThat(antes -> antes != existente && antes.getStatus() == Assinatura.SubscriptionStatus.CANCELADO),
+				argThat(depois -> depois.getStatus() == Assinatura.SubscriptionStatus.ATIVO));
+	}
+
+	@Test
+	void upgradeEmLoteGravaTodosDeUmaVezEDescontaQuemJaExistia() {
+		Assinatura cancelada = premium(11);
+		cancelada.setStatus(Assinatura.SubscriptionStatus.CANCELADO);
+		when(loteRepositorio.buscarPorUsuariosParaAtualizar(any())).thenReturn(List.of(cancelada));
+
+		servico.upgradePremiumEmLote(List.of(11, 12));
+
+		verify(loteRepositorio).gravar(argThat(assinaturas -> assinaturas.size() == 2 && assinaturas.stream()
+				.allMatch(a -> a.getPlano() == Assinatura.PlanType.PREMIUM && a.getStatus() == Assinatura.SubscriptionStatus.ATIVO)));
+		verify(contadores).registrarMudancas(
+				argThat(antes -> antes.get(0) == cancelada && antes.get(1) == null),
+				argThat(depois -> depois.get(0).getUserId() == 11 && depois.get(1).getUserId() == 12));
+	}
+
+	@Test
+	void upgradeEmLoteNaoAlimentaOLimitadorDasLeituras() {
+		LimitadorConcorrencia limitador = mock(LimitadorConcorrencia.class);
+		ServiçoAssinatura comLimitadorObservado = new ServiçoAssinatura(repositorio, loteRepositorio, limitador,
+				new Rastreador(new ExportadorOtlp("", "teste", 16), 0.0, 500), disjuntor, carregador, contadores, 100, 1000);
+
+		comLimitadorObservado.upgradePremiumEmLote(List.of(13, 14, 15));
+
+		verify(limitador, never()).registrarLatencia(anyLong());
+		comLimitadorObservado.encerrar();
+	}
+
+	private void bancoTravado() {
+		when(loteRepositorio.buscarPorUsuarios(any())).thenAnswer(invocacao -> {
+			Thread.sleep(5_000);
+			return List.of();
+		});
+	}
+
+	private static Assinatura premium(int usuario) {
+		Assinatura assinatura = new Assinatura();
+		assinatura.setUserId(usuario);
+		assinatura.setPlano(Assinatura.PlanType.PREMIUM);
+		assinatura.setStatus(Assinatura.SubscriptionStatus.ATIVO);
+		assinatura.setFimAssinatura(LocalDateTime.now().plusDays(10));
+		return assinatura;
+	}
+
+}